@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import io.github.cjstehno.trample.parser.StompDecoder;
+import io.github.cjstehno.trample.parser.StompParser;
+import io.github.cjstehno.trample.stomp.ConnectFrame;
+import io.github.cjstehno.trample.stomp.ConnectedFrame;
+import io.github.cjstehno.trample.stomp.FrameEncoder;
+import io.github.cjstehno.trample.stomp.MessageFrame;
+import io.github.cjstehno.trample.stomp.SendFrame;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.channels.SelectionKey.OP_ACCEPT;
+import static java.nio.channels.SelectionKey.OP_READ;
+
+/**
+ * Compares platform threads with virtual threads as the executor of blocking-transport clients (see
+ * <code>StompClient.executor(ExecutorService)</code>). Each trial connects the idle clients, which only keep their
+ * receive loop parked, and the busy clients - an operation is one SEND/MESSAGE round trip by every busy client at the
+ * same time, with a listener which blocks for <code>handlerMillis</code>.
+ *
+ * The broker runs in the same JVM, so each client needs two file descriptors (raise <code>ulimit -n</code>), and the
+ * virtual threads need a Java 21+ runtime:
+ *
+ * <pre>./gradlew :trample-client:jmh -Pjmh.includes=ThreadModelBenchmark -Pjmh.profilers=gc</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2) @Measurement(iterations = 5, time = 2) @Fork(1)
+public class ThreadModelBenchmark {
+
+    @Param({"platform", "virtual"}) private String threads;
+    @Param({"10000"}) private int idleConnections;
+    @Param({"1000"}) private int busyConnections;
+    @Param({"0", "1"}) private int handlerMillis;
+
+    private Broker broker;
+    private ExecutorService executor;
+    private final List<StompClient> clients = new ArrayList<>();
+    private final List<StompClient> busyClients = new ArrayList<>();
+    private volatile CountDownLatch roundTrips;
+
+    @Setup(Level.Trial) public void setup() throws IOException {
+        broker = new Broker();
+        executor = "virtual".equals(threads) ? VirtualThreads.newExecutor() : Executors.newCachedThreadPool();
+
+        for (int i = 0; i < idleConnections + busyConnections; i++) {
+            final StompClient client = new StompClient("127.0.0.1", broker.port()).executor(executor);
+            if (i >= idleConnections) {
+                client.on(MessageFrame.class, frame -> {
+                    if (handlerMillis > 0) {
+                        sleep(handlerMillis);
+                    }
+                    roundTrips.countDown();
+                });
+                busyClients.add(client);
+            }
+            client.connect();
+            clients.add(client);
+        }
+    }
+
+    @TearDown(Level.Trial) public void tearDown() throws IOException {
+        for (final StompClient client : clients) {
+            client.disconnect();
+        }
+        executor.shutdownNow();
+        broker.close();
+    }
+
+    @Benchmark public void roundTrips() throws Exception {
+        roundTrips = new CountDownLatch(busyClients.size());
+        for (final StompClient client : busyClients) {
+            client.send(new SendFrame("/queue/bench"));
+        }
+        roundTrips.await();
+    }
+
+    private static void sleep(final int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A single-threaded broker answering CONNECT with CONNECTED and each SEND with a MESSAGE.
+     */
+    private static final class Broker implements Runnable {
+
+        private final ServerSocketChannel server;
+        private final Selector selector;
+        private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(64 * 1024);
+        private final ByteBuffer connected = FrameEncoder.encode(new ConnectedFrame("1.2"));
+        private final ByteBuffer message = FrameEncoder.encode(new MessageFrame("/queue/bench", "m-1"));
+        private final Thread thread;
+
+        Broker() throws IOException {
+            server = ServerSocketChannel.open().bind(new InetSocketAddress("127.0.0.1", 0), 1024);
+            server.configureBlocking(false);
+            selector = Selector.open();
+            server.register(selector, OP_ACCEPT);
+
+            thread = new Thread(this, "bench-broker");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        int port() throws IOException {
+            return ((InetSocketAddress) server.getLocalAddress()).getPort();
+        }
+
+        @Override public void run() {
+            try {
+                while (selector.isOpen()) {
+                    selector.select();
+                    for (final SelectionKey key : selector.selectedKeys()) {
+                        if (key.isAcceptable()) {
+                            final SocketChannel channel = server.accept();
+                            if (channel != null) {
+                                channel.configureBlocking(false);
+                                channel.register(selector, OP_READ, StompParser.forClientFrames().decoder());
+                            }
+                        } else if (key.isReadable()) {
+                            read(key);
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } catch (Exception e) {
+                // closed
+            }
+        }
+
+        private void read(final SelectionKey key) throws IOException {
+            final SocketChannel channel = (SocketChannel) key.channel();
+            try {
+                if (channel.read(readBuffer.clear()) < 0) {
+                    channel.close();
+                    return;
+                }
+                ((StompDecoder) key.attachment()).decode(readBuffer.flip(), frame -> {
+                    if (frame instanceof ConnectFrame) {
+                        write(channel, connected);
+                    } else if (frame instanceof SendFrame) {
+                        write(channel, message);
+                    }
+                });
+            } catch (IOException e) {
+                channel.close();
+            }
+        }
+
+        // the replies are tiny and the clients keep reading, so spinning on a full socket buffer is good enough here
+        private static void write(final SocketChannel channel, final ByteBuffer frame) {
+            try {
+                final ByteBuffer bytes = frame.duplicate();
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void close() throws IOException {
+            selector.close();
+            server.close();
+        }
+    }
+}
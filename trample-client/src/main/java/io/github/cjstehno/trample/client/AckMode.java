@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The acknowledgement modes of a subscription, the values of the <code>ack</code> header of the SUBSCRIBE frame.
+ */
+@RequiredArgsConstructor
+public enum AckMode {
+
+    /**
+     * The messages are considered acknowledged as soon as the server sends them (the default).
+     */
+    AUTO("auto"),
+
+    /**
+     * The messages are acknowledged by the client, cumulatively: acknowledging a message also acknowledges all the
+     * messages received (on the subscription) before it.
+     */
+    CLIENT("client"),
+
+    /**
+     * The messages are acknowledged by the client, one by one.
+     */
+    CLIENT_INDIVIDUAL("client-individual");
+
+    /**
+     * The value of the <code>ack</code> header.
+     */
+    @Getter private final String headerValue;
+
+    /**
+     * Resolves the mode from the value of an <code>ack</code> header.
+     *
+     * @param headerValue the header value (<code>null</code> being {@link #AUTO})
+     * @return the mode
+     * @throws IllegalArgumentException if the value is not a valid mode
+     */
+    public static AckMode fromHeader(final String headerValue) {
+        if (headerValue == null) {
+            return AUTO;
+        }
+
+        for (final AckMode mode : values()) {
+            if (mode.headerValue.equals(headerValue)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Invalid ack mode: " + headerValue);
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Determines how the acknowledgements of the messages of <code>client</code> and <code>client-individual</code>
+ * subscriptions are batched. Acknowledgements are held back until the batch is full or its time window has elapsed,
+ * and then written together - a single ACK frame in the cumulative <code>client</code> mode, or all the ACK frames
+ * of the batch in a single write in the <code>client-individual</code> mode.
+ */
+@Getter @ToString @RequiredArgsConstructor(access = PRIVATE)
+public final class AckPolicy {
+
+    /**
+     * The maximum number of acknowledgements held back.
+     */
+    private final int maxCount;
+
+    /**
+     * The maximum time (in milliseconds) an acknowledgement is held back, zero when it is written right away.
+     */
+    private final long maxDelayMillis;
+
+    /**
+     * No batching, each acknowledgement is written as soon as it is made (the default).
+     *
+     * @return the policy
+     */
+    public static AckPolicy immediate() {
+        return new AckPolicy(1, 0);
+    }
+
+    /**
+     * Acknowledgements are held back until the given number of them is pending, or the oldest of them has been held
+     * for the given time.
+     *
+     * @param maxCount the maximum number of acknowledgements held back
+     * @param maxDelay the maximum time an acknowledgement is held back
+     * @param unit     the unit of the time
+     * @return the policy
+     */
+    public static AckPolicy batched(final int maxCount, final long maxDelay, final TimeUnit unit) {
+        if (maxCount < 1 || maxDelay < 0) {
+            throw new IllegalArgumentException("The count must be positive and the delay must not be negative.");
+        }
+        return new AckPolicy(maxCount, unit.toMillis(maxDelay));
+    }
+}
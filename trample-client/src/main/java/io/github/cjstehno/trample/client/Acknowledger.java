@@ -0,0 +1,296 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import io.github.cjstehno.trample.stomp.AckFrame;
+import io.github.cjstehno.trample.stomp.BaseFrame;
+import io.github.cjstehno.trample.stomp.MessageFrame;
+import io.github.cjstehno.trample.stomp.NackFrame;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+import static io.github.cjstehno.trample.client.AckMode.CLIENT;
+import static io.github.cjstehno.trample.stomp.MessageFrame.MESSAGE_ID_HEADER;
+import static io.github.cjstehno.trample.stomp.StompHeaders.ID;
+import static io.github.cjstehno.trample.stomp.StompHeaders.SUBSCRIPTION;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static lombok.AccessLevel.PACKAGE;
+
+/**
+ * The acknowledgement state of a <code>client</code> or <code>client-individual</code> subscription: the messages
+ * delivered but not yet acknowledged, and the acknowledgements held back according to the {@link AckPolicy}.
+ *
+ * The messages are identified by their <code>ack</code> header (STOMP 1.2), or by their <code>message-id</code>
+ * (STOMP 1.0 and 1.1 - the ACK frame then carries the <code>message-id</code> and <code>subscription</code> headers
+ * instead).
+ */
+@RequiredArgsConstructor(access = PACKAGE)
+final class Acknowledger {
+
+    private final String subscriptionId;
+    private final AckMode mode;
+    private final AckPolicy policy;
+    private final HashedTimerWheel timer;
+    private final Executor executor;
+    private final Function<List<BaseFrame>, CompletableFuture<Void>> writer;
+    private final IntConsumer acknowledged;
+
+    // all guarded by this
+    private final Set<String> unacknowledged = new LinkedHashSet<>();
+    private final List<BaseFrame> batch = new ArrayList<>();
+    private CompletableFuture<Void> batchWritten = new CompletableFuture<>();
+    private int batchCount;
+    private HashedTimerWheel.Timeout batchTimeout;
+
+    // the batches taken, written in order by one thread at a time - outside of the lock, as a write may block
+    private final Queue<Batch> outgoing = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean writing = new AtomicBoolean();
+
+    /**
+     * Records the delivery of a message, which must now be acknowledged.
+     *
+     * @param message the message
+     */
+    synchronized void delivered(final MessageFrame message) {
+        unacknowledged.add(ackId(message));
+    }
+
+    /**
+     * Forgets a delivered message which was discarded before being handled (see {@link OverflowPolicy#DROP}), so that
+     * it no longer counts against the prefetch. Nothing is written: the server redelivers it, unless a cumulative
+     * acknowledgement covers it.
+     *
+     * @param message the message
+     */
+    synchronized void discarded(final MessageFrame message) {
+        acknowledge(ackId(message), false);
+    }
+
+    /**
+     * Acknowledges the message - and, in the cumulative mode, all the messages delivered before it.
+     *
+     * @param message the message
+     * @return a future completed when the acknowledgement has been written
+     */
+    CompletableFuture<Void> ack(final MessageFrame message) {
+        final CompletableFuture<Void> written;
+        synchronized (this) {
+            if (acknowledge(ackId(message), mode == CLIENT) == 0) {
+                // already covered by a cumulative acknowledgement
+                return CompletableFuture.completedFuture(null);
+            }
+
+            if (mode == CLIENT) {
+                // only the latest cumulative acknowledgement needs to be written
+                batch.clear();
+            }
+            batch.add(frame(new AckFrame(), message));
+            batchCount++;
+
+            written = batchWritten;
+            if (batchCount >= policy.getMaxCount() || policy.getMaxDelayMillis() == 0) {
+                takeBatch();
+            } else if (batchTimeout == null) {
+                // the timer thread must never block, so the batch is written by the executor
+                batchTimeout = timer.schedule(
+                    () -> executor.execute(this::flush), policy.getMaxDelayMillis(), MILLISECONDS
+                );
+            }
+        }
+        write();
+        return written;
+    }
+
+    /**
+     * Rejects the message. Any acknowledgements held back are written first, together with the NACK frame. Only the
+     * message itself is rejected, even in the cumulative mode: the messages delivered before it remain to be
+     * acknowledged (or rejected).
+     *
+     * @param message the message
+     * @return a future completed when the NACK frame has been written
+     */
+    CompletableFuture<Void> nack(final MessageFrame message) {
+        final CompletableFuture<Void> written;
+        synchronized (this) {
+            if (acknowledge(ackId(message), false) == 0) {
+                // already acknowledged or rejected
+                return CompletableFuture.completedFuture(null);
+            }
+
+            batch.add(frame(new NackFrame(), message));
+            written = takeBatch();
+        }
+        write();
+        return written;
+    }
+
+    /**
+     * Acknowledges the message as part of a transaction: the acknowledgement is not held back, but returned to be
+     * written with the other frames of the transaction. The message remains outstanding until the transaction has been
+     * committed (see {@link #committed(MessageFrame)}), so it may still be acknowledged if the transaction is aborted.
+     *
+     * @param message the message
+     * @return the ACK frame, or <code>null</code> if the message has already been acknowledged
+     */
+    synchronized AckFrame transacted(final MessageFrame message) {
+        if (!unacknowledged.contains(ackId(message))) {
+            return null;
+        }
+        return frame(new AckFrame(), message);
+    }
+
+    /**
+     * Records the acknowledgement of the message - and, in the cumulative mode, all the messages delivered before it -
+     * by a transaction which has been committed.
+     *
+     * @param message the message
+     */
+    synchronized void committed(final MessageFrame message) {
+        acknowledge(ackId(message), mode == CLIENT);
+    }
+
+    /**
+     * Writes the acknowledgements held back, if any.
+     *
+     * @return a future completed when they have been written
+     */
+    CompletableFuture<Void> flush() {
+        final CompletableFuture<Void> written;
+        synchronized (this) {
+            written = takeBatch();
+        }
+        write();
+        return written;
+    }
+
+    /**
+     * The number of messages delivered and not yet acknowledged (or rejected).
+     *
+     * @return the number of unacknowledged messages
+     */
+    synchronized int unacknowledged() {
+        return unacknowledged.size();
+    }
+
+    // moves the acknowledgements held back to the outgoing batches, returning the future of their write (guarded by this)
+    private CompletableFuture<Void> takeBatch() {
+        if (batchTimeout != null) {
+            batchTimeout.cancel();
+            batchTimeout = null;
+        }
+
+        val written = batchWritten;
+        if (batch.isEmpty()) {
+            written.complete(null);
+        } else {
+            // queued while holding the lock, so that the batches of the subscription are written in order
+            outgoing.add(new Batch(new ArrayList<>(batch), written));
+            batch.clear();
+        }
+
+        batchCount = 0;
+        batchWritten = new CompletableFuture<>();
+        return written;
+    }
+
+    // writes the outgoing batches, unless another thread is already writing them (it then writes these as well)
+    private void write() {
+        while (!outgoing.isEmpty() && writing.compareAndSet(false, true)) {
+            try {
+                Batch taken;
+                while ((taken = outgoing.poll()) != null) {
+                    val written = taken.written;
+                    try {
+                        writer.apply(taken.frames).whenComplete((result, failure) -> {
+                            if (failure != null) {
+                                written.completeExceptionally(failure);
+                            } else {
+                                written.complete(null);
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        written.completeExceptionally(e);
+                    }
+                }
+            } finally {
+                writing.set(false);
+            }
+        }
+    }
+
+    // removes the acknowledged messages - with all the earlier ones when cumulative - returning their number (zero if
+    // the message was already acknowledged)
+    private int acknowledge(final String ackId, final boolean cumulative) {
+        var count = 0;
+        if (!cumulative) {
+            count = unacknowledged.remove(ackId) ? 1 : 0;
+
+        } else if (unacknowledged.contains(ackId)) {
+            // the messages are held in the order of delivery, so this removes the message and all the earlier ones
+            final Iterator<String> ids = unacknowledged.iterator();
+            while (ids.hasNext()) {
+                val id = ids.next();
+                ids.remove();
+                count++;
+                if (id.equals(ackId)) {
+                    break;
+                }
+            }
+        }
+
+        if (count > 0) {
+            acknowledged.accept(count);
+        }
+        return count;
+    }
+
+    private <F extends BaseFrame> F frame(final F frame, final MessageFrame message) {
+        val ack = message.getAck();
+        if (ack != null) {
+            frame.setHeader(ID, ack);
+        } else {
+            frame.setHeader(MESSAGE_ID_HEADER, message.getMessageId());
+            frame.setHeader(SUBSCRIPTION, subscriptionId);
+        }
+        return frame;
+    }
+
+    // the id of the message within its subscription: its ack header, or its message-id before STOMP 1.2
+    static String ackId(final MessageFrame message) {
+        val ack = message.getAck();
+        return ack != null ? ack : message.getMessageId();
+    }
+
+    @RequiredArgsConstructor
+    private static final class Batch {
+
+        private final List<BaseFrame> frames;
+        private final CompletableFuture<Void> written;
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import static lombok.AccessLevel.PACKAGE;
+
+/**
+ * A transport over a blocking socket channel, with a task of the provided executor blocked reading from it (or waiting
+ * while the inbound handler is paused). Writes are performed by the calling thread.
+ */
+@Slf4j @RequiredArgsConstructor(access = PACKAGE)
+class BlockingTransport implements Transport {
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final ExecutorService executor;
+    private final Object writeLock = new Object();
+    private final Object readLock = new Object();
+    private SocketChannel channel;
+
+    @Override public void open(final InetSocketAddress address, final Inbound inbound) throws IOException {
+        channel = SocketChannel.open(address);
+        executor.submit(() -> receive(inbound));
+    }
+
+    private void receive(final Inbound inbound) {
+        Throwable failure = null;
+        try {
+            val buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                inbound.received(buffer.flip());
+                buffer.clear();
+                awaitResumed(inbound);
+            }
+        } catch (AsynchronousCloseException e) {
+            // closed by the client
+        } catch (Exception e) {
+            log.error("Error: {}", e.getMessage(), e);
+            failure = e;
+        }
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Unable to close channel: {}", e.getMessage(), e);
+        }
+        inbound.closed(failure);
+    }
+
+    // the reading thread blocks while the inbound handler is paused
+    private void awaitResumed(final Inbound inbound) throws InterruptedException {
+        synchronized (readLock) {
+            while (inbound.paused() && channel.isOpen()) {
+                readLock.wait();
+            }
+        }
+    }
+
+    @Override public void resumeReading() {
+        synchronized (readLock) {
+            readLock.notifyAll();
+        }
+    }
+
+    @Override public CompletableFuture<Void> write(final ByteBuffer[] buffers) {
+        try {
+            synchronized (writeLock) {
+                while (hasRemaining(buffers)) {
+                    channel.write(buffers);
+                }
+            }
+            return CompletableFuture.completedFuture(null);
+
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            resumeReading();
+        }
+    }
+
+    static boolean hasRemaining(final ByteBuffer[] buffers) {
+        for (val buffer : buffers) {
+            if (buffer.hasRemaining()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
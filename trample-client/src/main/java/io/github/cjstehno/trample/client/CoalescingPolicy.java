@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Determines how the outbound frames of a client are coalesced into socket writes. Frames sent while a previous write
+ * is still in progress are always merged into the next write; the policy bounds the size of a write and may also hold
+ * frames back for a short time, so that more of them are merged.
+ */
+@Getter @ToString @RequiredArgsConstructor(access = PRIVATE)
+public final class CoalescingPolicy {
+
+    /**
+     * The default maximum number of bytes merged into a single write.
+     */
+    public static final int DEFAULT_MAX_BATCH_BYTES = 64 * 1024;
+
+    /**
+     * The maximum number of bytes merged into a single write - a single frame larger than this is still written whole.
+     */
+    private final int maxBatchBytes;
+
+    /**
+     * The maximum time (in microseconds) a frame is held back waiting for more frames, zero when frames are written as
+     * soon as the connection is idle.
+     */
+    private final long maxDelayMicros;
+
+    /**
+     * No coalescing, each frame is written on its own (in order).
+     *
+     * @return the policy
+     */
+    public static CoalescingPolicy none() {
+        return new CoalescingPolicy(1, 0);
+    }
+
+    /**
+     * Frames are written as soon as the connection is idle, with those sent in the meantime merged into the next write
+     * (of up to {@link #DEFAULT_MAX_BATCH_BYTES}). No latency is added to an otherwise idle connection.
+     *
+     * @return the policy
+     */
+    public static CoalescingPolicy whenIdle() {
+        return whenIdle(DEFAULT_MAX_BATCH_BYTES);
+    }
+
+    /**
+     * Frames are written as soon as the connection is idle, with those sent in the meantime merged into the next write
+     * (of up to the given number of bytes).
+     *
+     * @param maxBatchBytes the maximum number of bytes merged into a write
+     * @return the policy
+     */
+    public static CoalescingPolicy whenIdle(final int maxBatchBytes) {
+        return delayed(0, maxBatchBytes);
+    }
+
+    /**
+     * Frames are held back for up to the given delay, or until the given number of bytes is queued, and then written
+     * together. This trades a little latency for fewer writes (and TCP segments) when many small frames are sent. The
+     * delay is measured by the timer shared by the clients, with a resolution of 10ms.
+     *
+     * @param maxDelayMicros the maximum delay of a frame, in microseconds
+     * @param maxBatchBytes  the maximum number of bytes merged into a write
+     * @return the policy
+     */
+    public static CoalescingPolicy delayed(final long maxDelayMicros, final int maxBatchBytes) {
+        if (maxDelayMicros < 0 || maxBatchBytes < 1) {
+            throw new IllegalArgumentException("The delay must not be negative and the batch size must be positive.");
+        }
+        return new CoalescingPolicy(maxBatchBytes, maxDelayMicros);
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.concurrent.Executor;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Determines which threads the received frames are dispatched to the listeners and subscription handlers on.
+ *
+ * The frames are always handled in order within a subscription (and within the frames not belonging to a
+ * subscription). With the queued modes, each queue holds up to <code>capacity</code> frames, beyond which the
+ * <code>overflow</code> policy applies. An event loop thread is never blocked though: with the (default) BLOCK policy on
+ * the NIO transport, the queues are unbounded and reading from the connection is paused instead, once the client has
+ * <code>capacity</code> frames waiting for their handlers.
+ */
+@Getter @ToString @RequiredArgsConstructor(access = PRIVATE)
+public final class DispatchPolicy {
+
+    /**
+     * The default capacity of a dispatch queue.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * The dispatch modes.
+     */
+    public enum Mode {
+
+        /**
+         * The frames are handled on the receiving (socket reading or I/O) thread.
+         */
+        INLINE,
+
+        /**
+         * The frames are handled one at a time, in order, on the threads of an executor.
+         */
+        SERIAL,
+
+        /**
+         * The frames of each subscription are handled one at a time, in order, on the threads of an executor - with
+         * the different subscriptions (and the other frames) handled in parallel.
+         */
+        PER_SUBSCRIPTION
+    }
+
+    private final Mode mode;
+    @ToString.Exclude private final Executor executor;
+    private final int capacity;
+    private final OverflowPolicy overflow;
+
+    /**
+     * The frames are handled on the receiving thread, which must then never block.
+     *
+     * @return the policy
+     */
+    public static DispatchPolicy inline() {
+        return new DispatchPolicy(Mode.INLINE, null, 0, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * The frames are handled one at a time, in order, on the threads of the executor, separately from the receiving
+     * thread.
+     *
+     * @param executor the executor (possibly shared by any number of clients)
+     * @return the policy
+     */
+    public static DispatchPolicy serial(final Executor executor) {
+        return new DispatchPolicy(Mode.SERIAL, executor, DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Each subscription has its own serial queue on the threads of the executor, so that a slow subscription handler
+     * only holds back its own subscription.
+     *
+     * @param executor the executor (possibly shared by any number of clients)
+     * @return the policy
+     */
+    public static DispatchPolicy perSubscription(final Executor executor) {
+        return new DispatchPolicy(Mode.PER_SUBSCRIPTION, executor, DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Creates a copy of the policy with the given queue bounds (not used by the inline mode).
+     *
+     * @param capacity the maximum number of frames held by each queue
+     * @param overflow what happens when a frame is dispatched to a full queue
+     * @return the new policy
+     */
+    public DispatchPolicy bounded(final int capacity, final OverflowPolicy overflow) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be positive.");
+        }
+        return new DispatchPolicy(mode, executor, capacity, overflow);
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+import static java.nio.channels.SelectionKey.OP_READ;
+import static java.nio.channels.SelectionKey.OP_WRITE;
+
+/**
+ * A single I/O thread running a selector over the channels of any number of connections. All the channel operations
+ * of a connection happen on the thread of its loop, other threads hand work over to it with <code>execute</code>.
+ *
+ * Since the connections of a loop share its thread, the inbound handlers must not block.
+ */
+@Slf4j
+final class EventLoop implements Executor {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    // shared by all the connections of the loop, since the inbound chunks are consumed before the next read
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+    private volatile boolean closed;
+
+    EventLoop(final String name) throws IOException {
+        selector = Selector.open();
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Runs the task on the loop thread - immediately if called from the loop thread, otherwise as soon as the loop
+     * wakes up.
+     *
+     * @param task the task
+     */
+    @Override public void execute(final Runnable task) {
+        if (inLoop()) {
+            task.run();
+        } else {
+            tasks.add(task);
+            selector.wakeup();
+        }
+    }
+
+    boolean inLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    CompletableFuture<SelectionKey> register(final SocketChannel channel, final NioTransport transport) {
+        val registered = new CompletableFuture<SelectionKey>();
+        execute(() -> {
+            try {
+                registered.complete(channel.register(selector, OP_READ, transport));
+            } catch (Exception e) {
+                registered.completeExceptionally(e);
+            }
+        });
+        return registered;
+    }
+
+    void close() {
+        closed = true;
+        selector.wakeup();
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                selector.select();
+                runTasks();
+
+                val selected = selector.selectedKeys();
+                for (val key : selected) {
+                    handle(key);
+                }
+                selected.clear();
+            }
+        } catch (ClosedSelectorException e) {
+            // nothing to do
+        } catch (IOException e) {
+            log.error("Event loop failed: {}", e.getMessage(), e);
+        } finally {
+            for (val key : selector.keys()) {
+                ((NioTransport) key.attachment()).failed(null);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                log.warn("Unable to close selector: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Event loop task failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void handle(final SelectionKey key) {
+        val transport = (NioTransport) key.attachment();
+        try {
+            if (key.isValid() && key.isReadable()) {
+                transport.readable(readBuffer.clear());
+            }
+            if (key.isValid() && key.isWritable()) {
+                transport.writable();
+            }
+        } catch (Exception e) {
+            transport.failed(e);
+        }
+    }
+}
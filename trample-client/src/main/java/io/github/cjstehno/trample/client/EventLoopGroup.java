@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import lombok.val;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A group of event loops (selector threads) serving the connections of any number of clients which use the non-blocking
+ * transport. Each connection is assigned to one of the loops of the group, in turn, so a handful of threads can serve
+ * thousands of connections.
+ *
+ * The threads of the group are daemon threads, created when the group is created and stopped by <code>close()</code>.
+ */
+public final class EventLoopGroup implements AutoCloseable {
+
+    private final EventLoop[] loops;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private EventLoopGroup(final String name, final int threads) {
+        loops = new EventLoop[threads];
+        try {
+            for (int i = 0; i < threads; i++) {
+                loops[i] = new EventLoop(name + "-" + i);
+            }
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates an event loop group with the given number of I/O threads.
+     *
+     * @param threads the number of threads
+     * @return the event loop group
+     */
+    public static EventLoopGroup create(final int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The group must have at least one thread.");
+        }
+        return new EventLoopGroup("trample-io", threads);
+    }
+
+    /**
+     * Provides the default event loop group shared by all clients, with a thread per available processor. The shared
+     * group must not be closed.
+     *
+     * @return the shared event loop group
+     */
+    public static EventLoopGroup shared() {
+        return Shared.GROUP;
+    }
+
+    EventLoop next() {
+        return loops[Math.floorMod(next.getAndIncrement(), loops.length)];
+    }
+
+    /**
+     * Stops the threads of the group, closing the connections still served by them.
+     */
+    @Override public void close() {
+        for (val loop : loops) {
+            if (loop != null) {
+                loop.close();
+            }
+        }
+    }
+
+    private static final class Shared {
+        private static final EventLoopGroup GROUP = new EventLoopGroup("trample-io-shared", Runtime.getRuntime().availableProcessors());
+    }
+}
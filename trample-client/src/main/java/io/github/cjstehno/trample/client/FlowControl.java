@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static lombok.AccessLevel.PACKAGE;
+
+/**
+ * The inbound flow control of a client: a set of {@link Limit}s on the number of messages outstanding (per
+ * subscription, and buffered for the handlers) - reading from the connection is paused while any of them is reached,
+ * and resumed once all of them have been released below their capacity.
+ *
+ * Reading is only checked between the chunks read from the socket, so a limit may be exceeded by the messages of the
+ * chunk which reached it.
+ */
+@RequiredArgsConstructor(access = PACKAGE)
+final class FlowControl {
+
+    // closing a limit moves its count far below zero, so that it can never be reached again
+    private static final int CLOSED = Integer.MIN_VALUE / 2;
+
+    private final Runnable resume;
+    private final AtomicInteger saturated = new AtomicInteger();
+
+    /**
+     * Whether reading is to be paused, because a limit has been reached.
+     *
+     * @return true if reading is paused
+     */
+    boolean paused() {
+        return saturated.get() > 0;
+    }
+
+    /**
+     * Creates a new limit.
+     *
+     * @param capacity the number of outstanding messages pausing reading (zero for no limit)
+     * @return the limit
+     */
+    Limit limit(final int capacity) {
+        return new Limit(capacity);
+    }
+
+    private void saturate() {
+        saturated.incrementAndGet();
+    }
+
+    private void unsaturate() {
+        if (saturated.decrementAndGet() == 0) {
+            resume.run();
+        }
+    }
+
+    /**
+     * A count of outstanding messages, pausing reading while it is at (or above) its capacity.
+     */
+    @RequiredArgsConstructor(access = PACKAGE)
+    final class Limit {
+
+        private final int capacity;
+        private final AtomicInteger count = new AtomicInteger();
+
+        /**
+         * Counts an outstanding message.
+         */
+        void acquire() {
+            if (count.incrementAndGet() == capacity) {
+                saturate();
+            }
+        }
+
+        /**
+         * Releases outstanding messages.
+         *
+         * @param messages the number of messages released
+         */
+        void release(final int messages) {
+            val after = count.addAndGet(-messages);
+            if (capacity > 0 && after < capacity && after + messages >= capacity) {
+                unsaturate();
+            }
+        }
+
+        /**
+         * Closes the limit, which never pauses reading again.
+         */
+        void close() {
+            val before = count.getAndSet(CLOSED);
+            if (capacity > 0 && before >= capacity) {
+                unsaturate();
+            }
+        }
+
+        int count() {
+            return Math.max(0, count.get());
+        }
+    }
+}
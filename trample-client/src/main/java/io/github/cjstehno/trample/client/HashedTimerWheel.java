@@ -0,0 +1,175 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed timer wheel: a single thread advancing through a ring of buckets, one per tick, expiring the timeouts of the
+ * current bucket. Scheduling and cancelling a timeout are constant-time (and lock-free), so a single wheel can carry the
+ * heart-beat, receipt and acknowledgement timers of thousands of connections - at the cost of a resolution of one
+ * tick.
+ *
+ * The expired tasks are run on the wheel thread, so they must be short and must not block.
+ */
+@Slf4j
+final class HashedTimerWheel {
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickNanos;
+    private final List<Queue<Timeout>> buckets;
+    private final int mask;
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final long startNanos = System.nanoTime();
+    private long tick;
+
+    HashedTimerWheel(final String name, final long tickDuration, final TimeUnit unit, final int wheelSize) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("The wheel size must be a power of two.");
+        }
+
+        tickNanos = unit.toNanos(tickDuration);
+        mask = wheelSize - 1;
+        buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+
+        val thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Provides the timer wheel shared by all clients, with a tick of 10ms.
+     *
+     * @return the shared timer wheel
+     */
+    static HashedTimerWheel shared() {
+        return Shared.WHEEL;
+    }
+
+    /**
+     * Schedules the task to be run (on the wheel thread) once the delay has elapsed.
+     *
+     * @param task  the task
+     * @param delay the delay
+     * @param unit  the unit of the delay
+     * @return the timeout, used to cancel the task
+     */
+    Timeout schedule(final Runnable task, final long delay, final TimeUnit unit) {
+        val timeout = new Timeout(task, System.nanoTime() + unit.toNanos(Math.max(0, delay)));
+        added.add(timeout);
+        return timeout;
+    }
+
+    private void run() {
+        while (true) {
+            waitForTick();
+            transferAdded();
+            expire(buckets.get((int) (tick & mask)));
+            tick++;
+        }
+    }
+
+    private void waitForTick() {
+        val deadline = startNanos + (tick + 1) * tickNanos;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    // only the wheel thread touches the buckets
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.state.get() == CANCELLED) {
+                continue;
+            }
+
+            // a deadline already passed goes to the current bucket
+            val deadlineTick = Math.max(tick, (timeout.deadline - startNanos) / tickNanos);
+            timeout.rounds = (deadlineTick - tick) / buckets.size();
+            buckets.get((int) (deadlineTick & mask)).add(timeout);
+        }
+    }
+
+    private void expire(final Queue<Timeout> bucket) {
+        val iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            val timeout = iterator.next();
+            if (timeout.state.get() == CANCELLED) {
+                iterator.remove();
+
+            } else if (timeout.rounds > 0) {
+                timeout.rounds--;
+
+            } else {
+                iterator.remove();
+                if (timeout.state.compareAndSet(PENDING, EXPIRED)) {
+                    try {
+                        timeout.task.run();
+                    } catch (Exception e) {
+                        log.error("Timer task failed: {}", e.getMessage(), e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A scheduled task.
+     */
+    static final class Timeout {
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private long rounds;
+
+        private Timeout(final Runnable task, final long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the task, unless it has already run.
+         *
+         * @return true if the task was cancelled (and will not run)
+         */
+        boolean cancel() {
+            return state.compareAndSet(PENDING, CANCELLED);
+        }
+    }
+
+    private static final class Shared {
+        private static final HashedTimerWheel WHEEL = new HashedTimerWheel("trample-timer", 10, TimeUnit.MILLISECONDS, 512);
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+/**
+ * The queue (or lack of) on which the received frames are handled.
+ */
+@FunctionalInterface
+interface Lane {
+
+    /**
+     * The lane which runs the tasks on the calling thread.
+     */
+    Lane INLINE = task -> {
+        task.run();
+        return true;
+    };
+
+    /**
+     * Submits the given task to be run.
+     *
+     * @param task the task
+     * @return false when the lane is full and the task was discarded
+     * @throws java.util.concurrent.RejectedExecutionException if the lane is full and fails on overflow
+     */
+    boolean offer(Runnable task);
+}
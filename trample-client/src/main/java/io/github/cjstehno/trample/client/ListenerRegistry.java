@@ -0,0 +1,152 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import io.github.cjstehno.trample.stomp.*;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * The frame listeners of a client, indexed by frame type. The listeners of each type are held in an immutable array
+ * which is replaced (copy-on-write) when a listener is added or removed, so registration is safe from any thread and
+ * dispatching a frame is a lookup and an array iteration, without locking or allocation.
+ */
+final class ListenerRegistry {
+
+    private static final List<Class<? extends BaseFrame>> FRAME_TYPES = List.of(
+        ConnectFrame.class, StompFrame.class, ConnectedFrame.class, SendFrame.class, SubscribeFrame.class,
+        UnsubscribeFrame.class, AckFrame.class, NackFrame.class, BeginFrame.class, CommitFrame.class,
+        AbortFrame.class, DisconnectFrame.class, MessageFrame.class, ReceiptFrame.class, ErrorFrame.class
+    );
+    private static final Map<Class<?>, Integer> INDEXES = new HashMap<>();
+    private static final Listener[] NONE = new Listener[0];
+
+    static {
+        for (int i = 0; i < FRAME_TYPES.size(); i++) {
+            INDEXES.put(FRAME_TYPES.get(i), i);
+        }
+    }
+
+    private final AtomicReferenceArray<Listener[]> listeners = new AtomicReferenceArray<>(FRAME_TYPES.size());
+
+    ListenerRegistry() {
+        for (int i = 0; i < FRAME_TYPES.size(); i++) {
+            listeners.set(i, NONE);
+        }
+    }
+
+    /**
+     * Adds a listener of the given frame type.
+     *
+     * @param frameType the frame type
+     * @param handler   the listener
+     * @return the registration, used to remove the listener
+     */
+    Registration add(final Class<? extends BaseFrame> frameType, final Consumer<BaseFrame> handler) {
+        val index = index(frameType);
+        val listener = new Listener(handler);
+
+        Listener[] current;
+        Listener[] updated;
+        do {
+            current = listeners.get(index);
+            updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = listener;
+        } while (!listeners.compareAndSet(index, current, updated));
+
+        return () -> remove(index, listener);
+    }
+
+    /**
+     * Dispatches the frame to the listeners of its type.
+     *
+     * @param frame the frame
+     * @return true if there was at least one listener
+     */
+    boolean dispatch(final BaseFrame frame) {
+        val index = INDEXES.get(frame.getClass());
+        if (index == null) {
+            return false;
+        }
+
+        val registered = listeners.get(index);
+        for (val listener : registered) {
+            listener.handler.accept(frame);
+        }
+        return registered.length > 0;
+    }
+
+    /**
+     * Determines whether there are listeners of the type of the frame.
+     *
+     * @param frame the frame
+     * @return true if there is at least one listener
+     */
+    boolean has(final BaseFrame frame) {
+        val index = INDEXES.get(frame.getClass());
+        return index != null && listeners.get(index).length > 0;
+    }
+
+    int count(final Class<? extends BaseFrame> frameType) {
+        return listeners.get(index(frameType)).length;
+    }
+
+    private void remove(final int index, final Listener listener) {
+        Listener[] current;
+        Listener[] updated;
+        do {
+            current = listeners.get(index);
+
+            var position = -1;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == listener) {
+                    position = i;
+                    break;
+                }
+            }
+            if (position < 0) {
+                return;
+            }
+
+            updated = current.length == 1 ? NONE : new Listener[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, position);
+            System.arraycopy(current, position + 1, updated, position, current.length - position - 1);
+
+        } while (!listeners.compareAndSet(index, current, updated));
+    }
+
+    private static int index(final Class<? extends BaseFrame> frameType) {
+        val index = INDEXES.get(frameType);
+        if (index == null) {
+            throw new IllegalArgumentException("Unsupported frame type: " + frameType.getName());
+        }
+        return index;
+    }
+
+    // a distinct instance per registration, so the same handler may be registered (and removed) more than once
+    @RequiredArgsConstructor
+    private static final class Listener {
+
+        private final Consumer<BaseFrame> handler;
+    }
+}
@@ -0,0 +1,217 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import io.github.cjstehno.trample.stomp.MessageFrame;
+import io.github.cjstehno.trample.stomp.SubscribeFrame;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static lombok.AccessLevel.PACKAGE;
+
+/**
+ * A publisher of the messages of a subscription, which is started (with a SUBSCRIBE frame) when its single subscriber
+ * subscribes, and ended (with an UNSUBSCRIBE frame) when the subscriber cancels.
+ *
+ * The messages received beyond the demand of the subscriber are buffered - up to the prefetch of the subscription,
+ * after which reading from the connection is paused until the subscriber requests more. With the <code>client</code>
+ * and <code>client-individual</code> acknowledgement modes, each message is acknowledged once it has been passed to
+ * the subscriber, so the acknowledgements follow the demand as well.
+ *
+ * When the connection is closed normally, the subscriber is completed once the buffered messages have been emitted;
+ * when it fails, the subscriber is signalled the failure right away.
+ */
+@Slf4j @RequiredArgsConstructor(access = PACKAGE)
+final class MessagePublisher implements Flow.Publisher<MessageFrame> {
+
+    private final StompClient client;
+    private final SubscribeFrame frame;
+    private final FlowControl.Limit buffer;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    @Override public void subscribe(final Flow.Subscriber<? super MessageFrame> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override public void request(final long n) {
+                }
+
+                @Override public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("The publisher of a subscription allows only one subscriber."));
+            return;
+        }
+
+        val subscription = new MessageSubscription(subscriber, AckMode.fromHeader(frame.getAck()) != AckMode.AUTO);
+        subscriber.onSubscribe(subscription);
+        subscription.start();
+    }
+
+    private final class MessageSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super MessageFrame> subscriber;
+        private final boolean acknowledging;
+        private final Queue<MessageFrame> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile boolean completed;
+        private volatile Throwable failure;
+        private volatile Registration registration;
+        private volatile Registration onClose;
+
+        private MessageSubscription(final Flow.Subscriber<? super MessageFrame> subscriber, final boolean acknowledging) {
+            this.subscriber = subscriber;
+            this.acknowledging = acknowledging;
+        }
+
+        private void start() {
+            if (cancelled) {
+                return;
+            }
+
+            onClose = client.onClose(cause -> {
+                if (cause != null) {
+                    fail(cause);
+                } else {
+                    complete();
+                }
+            });
+            try {
+                registration = client.subscribe(frame, this::offer);
+                if (cancelled) {
+                    // cancelled while subscribing, after the cancellation was handled
+                    release();
+                }
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+            }
+        }
+
+        private void offer(final MessageFrame message) {
+            buffer.acquire();
+            queue.add(message);
+            drain();
+        }
+
+        private void fail(final Throwable cause) {
+            failure = cause;
+            drain();
+        }
+
+        private void complete() {
+            completed = true;
+            drain();
+        }
+
+        @Override public void request(final long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("The requested number of messages must be positive: " + n));
+                return;
+            }
+
+            requested.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            drain();
+        }
+
+        @Override public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        private void release() {
+            val unsubscribing = registration;
+            if (unsubscribing != null) {
+                unsubscribing.cancel();
+            }
+            if (onClose != null) {
+                onClose.cancel();
+            }
+            buffer.close();
+            queue.clear();
+        }
+
+        // the signals to the subscriber are serialized: only the thread which increments the work count from zero
+        // emits, the others leave their work to it - once terminated, the count is never released again
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            var missed = 1;
+            do {
+                if (cancelled) {
+                    // released by the draining thread, so that a message being emitted is still acknowledged
+                    release();
+                    return;
+                }
+
+                if (failure != null) {
+                    cancelled = true;
+                    release();
+                    subscriber.onError(failure);
+                    return;
+                }
+
+                val demand = requested.get();
+                var emitted = 0L;
+                MessageFrame message;
+                while (emitted != demand && !cancelled && (message = queue.poll()) != null) {
+                    emit(message);
+                    emitted++;
+                }
+
+                if (emitted != 0 && demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+
+                // no more messages arrive once the connection is closed
+                if (completed && queue.isEmpty() && !cancelled) {
+                    cancelled = true;
+                    release();
+                    subscriber.onComplete();
+                    return;
+                }
+
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit(final MessageFrame message) {
+            buffer.release(1);
+            try {
+                subscriber.onNext(message);
+            } catch (RuntimeException e) {
+                log.warn("Subscriber failed, cancelling ({}): {}", frame.getId(), e.getMessage(), e);
+                cancel();
+                return;
+            }
+
+            if (acknowledging) {
+                client.ack(message);
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.github.cjstehno.trample.client.BlockingTransport.hasRemaining;
+import static java.nio.channels.SelectionKey.OP_READ;
+import static java.nio.channels.SelectionKey.OP_WRITE;
+import static lombok.AccessLevel.PACKAGE;
+
+/**
+ * A transport over a non-blocking socket channel served by an {@link EventLoop}. The received bytes are delivered to
+ * the inbound handler on the loop thread, and writes are queued and performed by the loop as the socket accepts them.
+ */
+@Slf4j @RequiredArgsConstructor(access = PACKAGE)
+class NioTransport implements Transport {
+
+    private final EventLoop loop;
+    private final Queue<PendingWrite> writes = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private SocketChannel channel;
+    private SelectionKey key;
+    private Inbound inbound;
+
+    @Override public void open(final InetSocketAddress address, final Inbound inbound) throws IOException {
+        this.inbound = inbound;
+
+        // the connection is established in blocking mode, only the traffic is non-blocking
+        channel = SocketChannel.open(address);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.configureBlocking(false);
+
+        try {
+            key = loop.register(channel, this).join();
+        } catch (CompletionException e) {
+            channel.close();
+            throw new IOException("Unable to register channel: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    @Override public CompletableFuture<Void> write(final ByteBuffer[] buffers) {
+        val write = new PendingWrite(buffers, new CompletableFuture<>());
+        writes.add(write);
+
+        if (closed.get()) {
+            failWrites(new ClosedChannelException());
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            loop.execute(this::flush);
+        }
+        return write.future;
+    }
+
+    @Override public void close() {
+        failed(null);
+    }
+
+    @Override public void resumeReading() {
+        loop.execute(() -> {
+            // re-checked on the loop thread, where reading is paused, so that a stale resume is harmless
+            if (!closed.get() && !inbound.paused()) {
+                key.interestOps(key.interestOps() | OP_READ);
+            }
+        });
+    }
+
+    // called by the loop when the channel has bytes to be read
+    void readable(final ByteBuffer buffer) throws IOException {
+        int count;
+        do {
+            count = channel.read(buffer.clear());
+            if (count > 0) {
+                inbound.received(buffer.flip());
+
+                if (inbound.paused()) {
+                    // the unread bytes stay in the socket buffer until reading is resumed
+                    key.interestOps(key.interestOps() & ~OP_READ);
+                    return;
+                }
+            }
+        } while (count == buffer.capacity() && !closed.get());
+
+        if (count < 0) {
+            failed(null);
+        }
+    }
+
+    // called by the loop when the socket can accept more bytes
+    void writable() {
+        flush();
+    }
+
+    // called when the connection is closed, by the client, the server or a failure
+    void failed(final Throwable cause) {
+        if (closed.compareAndSet(false, true)) {
+            if (key != null) {
+                key.cancel();
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Unable to close channel: {}", e.getMessage(), e);
+            }
+
+            failWrites(cause != null ? cause : new ClosedChannelException());
+
+            if (cause != null) {
+                log.error("Error: {}", cause.getMessage(), cause);
+            }
+            inbound.closed(cause);
+        }
+    }
+
+    private void flush() {
+        try {
+            do {
+                PendingWrite write;
+                while ((write = writes.peek()) != null) {
+                    channel.write(write.buffers);
+                    if (hasRemaining(write.buffers)) {
+                        // the socket buffer is full, continue when it is writable again
+                        key.interestOps(key.interestOps() | OP_WRITE);
+                        return;
+                    }
+                    writes.poll();
+                    write.future.complete(null);
+                }
+
+                key.interestOps(key.interestOps() & ~OP_WRITE);
+                flushScheduled.set(false);
+
+                // a write may have been queued after the queue was found empty
+            } while (!writes.isEmpty() && flushScheduled.compareAndSet(false, true));
+
+        } catch (Exception e) {
+            failed(e);
+        }
+    }
+
+    private void failWrites(final Throwable cause) {
+        PendingWrite write;
+        while ((write = writes.poll()) != null) {
+            write.future.completeExceptionally(cause);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class PendingWrite {
+
+        private final ByteBuffer[] buffers;
+        private final CompletableFuture<Void> future;
+    }
+}
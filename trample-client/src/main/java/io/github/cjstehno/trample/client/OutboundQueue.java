@@ -0,0 +1,249 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import io.github.cjstehno.trample.stomp.BaseFrame;
+import io.github.cjstehno.trample.stomp.FrameEncoder;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static lombok.AccessLevel.PACKAGE;
+
+/**
+ * The outbound frames of a client, coalesced into transport writes according to a {@link CoalescingPolicy}. Any
+ * thread may send frames; only one write is in progress at a time, performed by whichever thread finds the queue idle
+ * (or by the completion of the previous write), so concurrent sends are merged rather than contending for the socket.
+ */
+@RequiredArgsConstructor(access = PACKAGE)
+final class OutboundQueue {
+
+    // frames up to this size are encoded into a single buffer, larger ones are written with their body as-is
+    private static final int COPY_THRESHOLD = 1024;
+
+    private static final byte[] EOL = {'\n'};
+
+    private final Transport transport;
+    private final CoalescingPolicy policy;
+    private final HashedTimerWheel timer;
+    // performs the delayed writes, as the timer thread must never block (the I/O thread, or a lane of the executor)
+    private final Executor executor;
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final AtomicBoolean writing = new AtomicBoolean();
+    private final AtomicBoolean timerArmed = new AtomicBoolean();
+    private volatile long lastWriteNanos = System.nanoTime();
+
+    /**
+     * Queues the frame to be written.
+     *
+     * @param frame the frame
+     * @return a future completed when the frame has been written to the socket (or failed to be)
+     */
+    CompletableFuture<Void> send(final BaseFrame frame) {
+        val size = FrameEncoder.encodedSize(frame);
+        val pending = new Pending(
+            size <= COPY_THRESHOLD ? new ByteBuffer[]{FrameEncoder.encode(frame)} : FrameEncoder.buffers(frame),
+            size, new CompletableFuture<>()
+        );
+
+        queue.add(pending);
+        queuedBytes.addAndGet(size);
+        schedule();
+
+        return pending.future;
+    }
+
+    /**
+     * Queues the frames to be written together, in order, by a single write - they are never split across writes or
+     * interleaved with the frames sent by other threads.
+     *
+     * @param frames the frames
+     * @return a future completed when the frames have been written to the socket (or failed to be)
+     */
+    CompletableFuture<Void> sendAll(final List<? extends BaseFrame> frames) {
+        val buffers = new ArrayList<ByteBuffer>(frames.size());
+        var size = 0L;
+        for (val frame : frames) {
+            val frameSize = FrameEncoder.encodedSize(frame);
+            if (frameSize <= COPY_THRESHOLD) {
+                buffers.add(FrameEncoder.encode(frame));
+            } else {
+                buffers.addAll(List.of(FrameEncoder.buffers(frame)));
+            }
+            size += frameSize;
+        }
+
+        val pending = new Pending(buffers.toArray(new ByteBuffer[0]), size, new CompletableFuture<>());
+        queue.add(pending);
+        queuedBytes.addAndGet(size);
+        schedule();
+
+        return pending.future;
+    }
+
+    /**
+     * Queues a heart-beat (a single EOL) to be written.
+     *
+     * @return a future completed when the heart-beat has been written to the socket
+     */
+    CompletableFuture<Void> heartBeat() {
+        val pending = new Pending(new ByteBuffer[]{ByteBuffer.wrap(EOL)}, 1, new CompletableFuture<>());
+        queue.add(pending);
+        queuedBytes.incrementAndGet();
+        schedule();
+
+        return pending.future;
+    }
+
+    /**
+     * The time of the start of the last write, used to tell whether the connection has been idle.
+     *
+     * @return the <code>System.nanoTime()</code> of the last write
+     */
+    long lastWriteNanos() {
+        return lastWriteNanos;
+    }
+
+    private void schedule() {
+        if (immediate()) {
+            if (writing.compareAndSet(false, true)) {
+                flush();
+            }
+        } else {
+            armTimer();
+        }
+    }
+
+    private boolean immediate() {
+        return policy.getMaxDelayMicros() == 0 || queuedBytes.get() >= policy.getMaxBatchBytes();
+    }
+
+    private void armTimer() {
+        if (timerArmed.compareAndSet(false, true)) {
+            timer.schedule(() -> executor.execute(() -> {
+                timerArmed.set(false);
+                if (writing.compareAndSet(false, true)) {
+                    flush();
+                }
+            }), policy.getMaxDelayMicros(), MICROSECONDS);
+        }
+    }
+
+    // only ever run by the current owner of the writing flag
+    private void flush() {
+        do {
+            val batch = new ArrayList<Pending>();
+            var bytes = 0L;
+
+            Pending pending;
+            while ((bytes < policy.getMaxBatchBytes() || batch.isEmpty()) && (pending = queue.poll()) != null) {
+                batch.add(pending);
+                bytes += pending.size;
+            }
+            queuedBytes.addAndGet(-bytes);
+
+            if (!batch.isEmpty()) {
+                lastWriteNanos = System.nanoTime();
+                val written = write(batch);
+                if (!written.isDone()) {
+                    // the non-blocking transport completes the write later, on its loop thread
+                    written.whenComplete((result, failure) -> {
+                        complete(batch, failure);
+                        if (continueWriting()) {
+                            flush();
+                        }
+                    });
+                    return;
+                }
+                complete(batch, failure(written));
+            }
+        } while (continueWriting());
+    }
+
+    // a transport failing synchronously fails the batch, rather than leaving the writing flag held
+    private CompletableFuture<Void> write(final List<Pending> batch) {
+        try {
+            return transport.write(buffers(batch));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // releases the writing flag, reacquiring it if the queued frames are to be written right away
+    private boolean continueWriting() {
+        writing.set(false);
+        if (queue.isEmpty()) {
+            return false;
+        } else if (immediate()) {
+            return writing.compareAndSet(false, true);
+        }
+        armTimer();
+        return false;
+    }
+
+    private static void complete(final List<Pending> batch, final Throwable failure) {
+        for (val written : batch) {
+            if (failure != null) {
+                written.future.completeExceptionally(failure);
+            } else {
+                written.future.complete(null);
+            }
+        }
+    }
+
+    private static Throwable failure(final CompletableFuture<Void> written) {
+        try {
+            written.join();
+            return null;
+        } catch (CompletionException e) {
+            return e.getCause();
+        }
+    }
+
+    private static ByteBuffer[] buffers(final List<Pending> batch) {
+        if (batch.size() == 1) {
+            return batch.get(0).buffers;
+        }
+
+        val buffers = new ArrayList<ByteBuffer>(batch.size() * 3);
+        for (val pending : batch) {
+            for (val buffer : pending.buffers) {
+                buffers.add(buffer);
+            }
+        }
+        return buffers.toArray(new ByteBuffer[0]);
+    }
+
+    @RequiredArgsConstructor
+    private static final class Pending {
+
+        private final ByteBuffer[] buffers;
+        private final long size;
+        private final CompletableFuture<Void> future;
+    }
+}
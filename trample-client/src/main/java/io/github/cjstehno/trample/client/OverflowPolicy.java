@@ -0,0 +1,37 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+/**
+ * What happens when a frame is dispatched to a bounded dispatch queue which is full.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * The receiving thread waits for room in the queue, which stops the reading of the connection (back-pressure).
+     */
+    BLOCK,
+
+    /**
+     * The frame is discarded (and logged).
+     */
+    DROP,
+
+    /**
+     * The connection is closed, as failed.
+     */
+    FAIL
+}
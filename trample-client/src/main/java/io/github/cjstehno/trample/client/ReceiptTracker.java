@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import io.github.cjstehno.trample.stomp.ReceiptFrame;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static lombok.AccessLevel.PACKAGE;
+
+/**
+ * Correlates the RECEIPT frames received with the frames which requested them. Each pending receipt is a future in a
+ * concurrent map (keyed by receipt id), completed when its RECEIPT arrives or failed when it times out - the timeouts
+ * are driven by the shared timer wheel, so thousands of pending receipts cost no threads.
+ */
+@RequiredArgsConstructor(access = PACKAGE)
+final class ReceiptTracker {
+
+    private final HashedTimerWheel timer;
+    private final Map<String, CompletableFuture<ReceiptFrame>> pending = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    /**
+     * Generates a new receipt id, unique for the tracker (i.e. the connection).
+     *
+     * @return the receipt id
+     */
+    String nextId() {
+        return "receipt-" + ids.incrementAndGet();
+    }
+
+    /**
+     * Starts tracking a receipt.
+     *
+     * @param receiptId the receipt id
+     * @param timeout   the time to wait for the receipt (zero for no limit)
+     * @param unit      the time unit of the timeout
+     * @return the future completed by the RECEIPT frame
+     * @throws IllegalArgumentException if the receipt is already being tracked
+     */
+    CompletableFuture<ReceiptFrame> track(final String receiptId, final long timeout, final TimeUnit unit) {
+        val receipt = new CompletableFuture<ReceiptFrame>();
+        if (pending.putIfAbsent(receiptId, receipt) != null) {
+            throw new IllegalArgumentException("Receipt already pending: " + receiptId);
+        }
+
+        if (timeout > 0) {
+            val expiry = timer.schedule(() -> {
+                if (pending.remove(receiptId, receipt)) {
+                    receipt.completeExceptionally(new TimeoutException("No receipt received for " + receiptId + "."));
+                }
+            }, timeout, unit);
+            receipt.whenComplete((frame, failure) -> expiry.cancel());
+        }
+        return receipt;
+    }
+
+    /**
+     * Completes the pending receipt matching the received RECEIPT frame.
+     *
+     * @param frame the RECEIPT frame
+     * @return true if the receipt was pending
+     */
+    boolean received(final ReceiptFrame frame) {
+        val receiptId = frame.getReceiptId();
+        val receipt = receiptId != null ? pending.remove(receiptId) : null;
+        return receipt != null && receipt.complete(frame);
+    }
+
+    /**
+     * Fails a pending receipt, e.g. when its frame could not be sent.
+     *
+     * @param receiptId the receipt id
+     * @param failure   the failure
+     */
+    void fail(final String receiptId, final Throwable failure) {
+        val receipt = pending.remove(receiptId);
+        if (receipt != null) {
+            receipt.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * Fails all the pending receipts, e.g. when the connection is closed.
+     *
+     * @param failure the failure
+     */
+    void failAll(final Throwable failure) {
+        for (val receiptId : pending.keySet()) {
+            fail(receiptId, failure);
+        }
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the submitted tasks one at a time, in submission order, on the threads of the delegate executor. No thread is
+ * held while there are no tasks, and the tasks of many serial executors can share the same delegate.
+ *
+ * A bounded serial executor holds up to <code>capacity</code> tasks (including the running one); submitting a task
+ * to a full executor blocks, discards the task or throws a <code>RejectedExecutionException</code>, depending on the
+ * overflow policy.
+ */
+@Slf4j
+final class SerialExecutor implements Executor, Lane {
+
+    // the maximum number of tasks run before the delegate thread is handed back (for fairness)
+    private static final int BATCH_SIZE = 64;
+
+    private final Executor delegate;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Semaphore permits;
+    private final OverflowPolicy overflow;
+
+    SerialExecutor(final Executor delegate) {
+        this.delegate = delegate;
+        this.permits = null;
+        this.overflow = OverflowPolicy.BLOCK;
+    }
+
+    SerialExecutor(final Executor delegate, final int capacity, final OverflowPolicy overflow) {
+        this.delegate = delegate;
+        this.permits = new Semaphore(capacity);
+        this.overflow = overflow;
+    }
+
+    @Override public void execute(final Runnable task) {
+        offer(task);
+    }
+
+    @Override public boolean offer(final Runnable task) {
+        if (permits != null && !acquire()) {
+            log.warn("Dispatch queue full, task discarded.");
+            return false;
+        }
+
+        tasks.add(task);
+        schedule();
+        return true;
+    }
+
+    private boolean acquire() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+
+        switch (overflow) {
+            case BLOCK -> {
+                try {
+                    permits.acquire();
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException("Interrupted while waiting for dispatch queue.", e);
+                }
+            }
+            case FAIL -> throw new RejectedExecutionException("Dispatch queue full.");
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            delegate.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            Runnable task;
+            int count = 0;
+            while (count++ < BATCH_SIZE && (task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("Task failed: {}", e.getMessage(), e);
+                } finally {
+                    if (permits != null) {
+                        permits.release();
+                    }
+                }
+            }
+        } finally {
+            // even when a task throws an error, so that the executor keeps draining
+            scheduled.set(false);
+            if (!tasks.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -16,28 +16,43 @@
 package io.github.cjstehno.trample.client;
 
 import io.github.cjstehno.trample.parser.StompParser;
+import io.github.cjstehno.trample.stomp.AckFrame;
 import io.github.cjstehno.trample.stomp.BaseFrame;
 import io.github.cjstehno.trample.stomp.ConnectFrame;
 import io.github.cjstehno.trample.stomp.ConnectedFrame;
-import io.github.cjstehno.trample.stomp.FrameType;
 import io.github.cjstehno.trample.stomp.FrameType.Type;
+import io.github.cjstehno.trample.stomp.HeartBeat;
+import io.github.cjstehno.trample.stomp.MessageFrame;
+import io.github.cjstehno.trample.stomp.ReceiptFrame;
+import io.github.cjstehno.trample.stomp.SubscribeFrame;
+import io.github.cjstehno.trample.stomp.UnsubscribeFrame;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 
-import java.io.*;
-import java.net.Socket;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static io.github.cjstehno.trample.stomp.FrameType.Type.CLIENT;
-import static java.nio.charset.StandardCharsets.US_ASCII;
+import static io.github.cjstehno.trample.stomp.StompHeaders.RECEIPT;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 // FIXME: this is the low-level client that just directly send/recive frames
 @RequiredArgsConstructor @Slf4j
@@ -45,83 +60,628 @@ public class StompClient {
 
     // FIXME: SSL support
 
+    // the multiple of the negotiated interval without any data received, after which the server is considered dead
+    private static final int HEART_BEAT_TOLERANCE = 2;
+
     private final String host;
     private final int port;
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
-    private final Map<Class<?>, List<Consumer<BaseFrame>>> listeners = new HashMap<>();
-    private Socket socket;
-    private Writer output;
+    private final ListenerRegistry listeners = new ListenerRegistry();
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final List<Consumer<Throwable>> closeListeners = new CopyOnWriteArrayList<>();
+    private final ReceiptTracker receipts = new ReceiptTracker(HashedTimerWheel.shared());
+    private final FlowControl flow = new FlowControl(this::resumeReading);
+    private final AtomicLong transactionIds = new AtomicLong();
 
-    public void connect() throws IOException {
-        socket = new Socket(host, port);
-        output = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), US_ASCII));
+    private EventLoopGroup eventLoopGroup;
+    private ExecutorService executor;
+    private boolean ownedExecutor;
+    private DispatchPolicy dispatchPolicy;
+    private Lane lane;
+    private CoalescingPolicy coalescing = CoalescingPolicy.whenIdle();
+    private HeartBeat heartBeat = HeartBeat.NONE;
+    private long receiptTimeoutMillis = 30_000;
+    private AckPolicy ackPolicy = AckPolicy.immediate();
+    private int prefetch;
+    private int inboundBuffer;
+    private FlowControl.Limit buffered;
+    private boolean pausingOnOverflow;
+    private volatile Transport transport;
+    private OutboundQueue outbound;
+    // the writes triggered by the timer wheel, whose thread must never block, are performed on the I/O thread of the
+    // connection (non-blocking) or on the executor (blocking)
+    private Executor timedWrites;
+    private volatile long lastReadNanos;
+    private volatile boolean heartBeating;
+    private volatile Throwable closeCause;
+    private volatile HashedTimerWheel.Timeout sendingHeartBeats;
+    private volatile HashedTimerWheel.Timeout checkingHeartBeats;
+
+    /**
+     * Configures the client to use the non-blocking transport, with its connection served by one of the I/O threads of
+     * the provided event loop group (which may be shared by any number of clients). The frames are then received and
+     * dispatched to the listeners on the I/O thread, so the listeners must not block.
+     *
+     * By default, the client uses a blocking socket read by a thread of its own.
+     *
+     * @param group the event loop group (or <code>null</code> to use the blocking transport)
+     * @return a reference to this client
+     */
+    public StompClient eventLoopGroup(final EventLoopGroup group) {
+        eventLoopGroup = group;
+        return this;
+    }
+
+    /**
+     * Configures the executor used by the client, such as a shared virtual thread executor (see
+     * {@link VirtualThreads#newExecutor()}). The executor runs the receive loop of the blocking transport and, unless
+     * another dispatch policy is configured, the received frames are dispatched to the listeners on it - in order, one
+     * at a time, but separately from the receive loop (or I/O thread), so that a blocking listener does not stall the
+     * reading of the socket (see {@link DispatchPolicy#serial(Executor)}).
+     *
+     * With the blocking transport, each client keeps a task of the executor busy reading, so the executor must not be
+     * bounded below the number of clients (plus their dispatching) - a virtual thread or cached thread pool executor is
+     * appropriate. The executor also performs the timed writes of the blocking transport, such as the heart-beats. The
+     * executor is not shut down by the client. By default, the client reads and writes on threads of its own and
+     * dispatches the frames to the listeners from the reading thread.
+     *
+     * @param executorService the executor (or <code>null</code> for the default behavior)
+     * @return a reference to this client
+     */
+    public StompClient executor(final ExecutorService executorService) {
+        executor = executorService;
+        return this;
+    }
+
+    /**
+     * Configures how the outbound frames are coalesced into socket writes - by default, frames sent while a write is in
+     * progress are merged into the next one (see {@link CoalescingPolicy#whenIdle()}).
+     *
+     * @param policy the coalescing policy
+     * @return a reference to this client
+     */
+    public StompClient coalescing(final CoalescingPolicy policy) {
+        coalescing = policy;
+        return this;
+    }
+
+    /**
+     * Configures the threads the received frames are handled on (see {@link DispatchPolicy}). By default, the frames
+     * are handled serially on the configured executor, or on the receiving thread when there is none.
+     *
+     * @param policy the dispatch policy
+     * @return a reference to this client
+     */
+    public StompClient dispatch(final DispatchPolicy policy) {
+        dispatchPolicy = policy;
+        return this;
+    }
+
+    /**
+     * Configures the heart-beating offered in the CONNECT frame: the interval (in milliseconds) at which the client can
+     * send heart-beats and the interval at which it wants to receive them. Once the server has answered with its own
+     * settings, the client sends an EOL whenever it has not written anything for the negotiated interval, and closes
+     * the connection when nothing has been received from the server for twice the negotiated interval. The timing of
+     * all clients is driven by a single shared timer wheel (with a resolution of 10ms).
+     *
+     * By default, no heart-beating is offered.
+     *
+     * @param settings the heart-beat settings
+     * @return a reference to this client
+     */
+    public StompClient heartBeat(final HeartBeat settings) {
+        heartBeat = settings;
+        return this;
+    }
+
+    /**
+     * Configures how long to wait for the receipt of a frame sent with <code>sendWithReceipt</code> before failing it
+     * with a <code>TimeoutException</code> (30 seconds by default). The timeouts are driven by the timer wheel shared
+     * by all clients.
+     *
+     * @param timeout the timeout (zero for none)
+     * @param unit    the unit of the timeout
+     * @return a reference to this client
+     */
+    public StompClient receiptTimeout(final long timeout, final TimeUnit unit) {
+        receiptTimeoutMillis = unit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * Configures how the acknowledgements of the messages of <code>client</code> and <code>client-individual</code>
+     * subscriptions are batched (by default, they are written as soon as they are made).
+     *
+     * @param policy the acknowledgement policy
+     * @return a reference to this client
+     */
+    public StompClient ackPolicy(final AckPolicy policy) {
+        ackPolicy = policy;
+        return this;
+    }
 
+    /**
+     * Configures the default prefetch of the subscriptions: the maximum number of messages of a subscription delivered
+     * and not yet acknowledged (for the <code>client</code> and <code>client-individual</code> modes) or handled (for
+     * the <code>auto</code> mode). Reading from the connection is paused while a subscription has reached its prefetch,
+     * so that the server is held back. The prefetch is also sent to the server as the
+     * <code>activemq.prefetchSize</code> header of the SUBSCRIBE frame, for the brokers supporting it - a SUBSCRIBE
+     * frame with that header overrides the default prefetch. By default, there is no prefetch limit.
+     *
+     * @param messages the maximum number of outstanding messages of a subscription (zero for no limit)
+     * @return a reference to this client
+     */
+    public StompClient prefetch(final int messages) {
+        prefetch = messages;
+        return this;
+    }
+
+    /**
+     * Configures the size of the inbound buffer: the maximum number of messages (of all the subscriptions) delivered
+     * and waiting for their handler. Reading from the connection is paused while the buffer is full - pausing the
+     * event loop interest of the connection with the NIO transport, or blocking the reading thread with the blocking
+     * transport. By default, the buffer is unbounded.
+     *
+     * A handler must not wait for a later message of the same connection while the buffer is bounded, as it may not
+     * be read until the handler returns.
+     *
+     * @param messages the maximum number of buffered messages (zero for no limit)
+     * @return a reference to this client
+     */
+    public StompClient inboundBuffer(final int messages) {
+        inboundBuffer = messages;
+        return this;
+    }
+
+    public void connect() throws IOException {
         // listen for connected
         on(ConnectedFrame.class, frame -> {
             log.info("CONNECTED: {}", frame);
         });
 
-        val waiter = new CountDownLatch(1);
+        if (dispatchPolicy == null) {
+            dispatchPolicy = executor != null ? DispatchPolicy.serial(executor) : DispatchPolicy.inline();
+        }
+        // an event loop thread must never block, so a full dispatch queue pauses reading instead: the queues are then
+        // unbounded, with the messages buffered by the client limited to the queue capacity
+        pausingOnOverflow = eventLoopGroup != null
+            && dispatchPolicy.getMode() != DispatchPolicy.Mode.INLINE
+            && dispatchPolicy.getOverflow() == OverflowPolicy.BLOCK;
+        lane = newLane(null);
 
-        // start receiver
-        executor.submit(() -> {
-            val parser = StompParser.forServerFrames();
+        if (executor == null && eventLoopGroup == null) {
+            executor = Executors.newCachedThreadPool();
+            ownedExecutor = true;
+        }
 
-            try (val reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), US_ASCII))) {
-                waiter.countDown();
+        if (eventLoopGroup != null) {
+            val loop = eventLoopGroup.next();
+            transport = new NioTransport(loop);
+            timedWrites = loop;
+        } else {
+            transport = new BlockingTransport(executor);
+            timedWrites = new SerialExecutor(executor);
+        }
+        outbound = new OutboundQueue(transport, coalescing, HashedTimerWheel.shared(), timedWrites);
+        buffered = flow.limit(inboundBuffer > 0 || !pausingOnOverflow ? inboundBuffer : dispatchPolicy.getCapacity());
 
-                parser.read(reader, this::notifyListeners);
+        // the frames are decoded from the raw bytes, as they arrive, so that binary bodies are not mangled
+        val decoder = StompParser.forServerFrames().decoder();
+        transport.open(new InetSocketAddress(host, port), new Transport.Inbound() {
+            @Override public void received(final ByteBuffer chunk) throws IOException {
+                lastReadNanos = System.nanoTime();
+                decoder.decode(chunk, StompClient.this::dispatch);
+            }
 
-            } catch (Exception e) {
-                log.error("Error: {}", e.getMessage(), e);
+            @Override public boolean paused() {
+                return flow.paused();
             }
-        });
 
-        // wait for stuff to be started
-        try {
-            waiter.await();
-        } catch (InterruptedException e) {
-            log.error("Exception: {}", e.getMessage(), e);
-        }
+            @Override public void closed(final Throwable failure) {
+                // a connection closed by the client itself may still have a cause, e.g. a missed heart-beat
+                val cause = failure != null ? failure : closeCause;
+
+                stopHeartBeats();
+                receipts.failAll(cause != null ? cause : new IOException("Connection closed."));
+                log.info("Connection closed.");
+                closeListeners.forEach(listener -> listener.accept(cause));
+            }
+        });
+        lastReadNanos = System.nanoTime();
 
         // send the connect frame
         // TODO: make these configurable
         val connectFrame = new ConnectFrame("locahost", "1.0,1.1,1.2");
+        if (!HeartBeat.NONE.equals(heartBeat)) {
+            connectFrame.setHeartBeat(heartBeat);
+        }
         send(connectFrame);
 
         log.info("Initialized.");
     }
 
-    private void notifyListeners(final BaseFrame frame) {
-        if (listeners.containsKey(frame.getClass())) {
-            listeners.get(frame.getClass()).forEach(handler -> handler.accept(frame));
+    // the queue (or lack of) the frames of a subscription - or the other frames, when null - are handled on
+    private Lane newLane(final Subscription subscription) {
+        return switch (dispatchPolicy.getMode()) {
+            case INLINE -> Lane.INLINE;
+            case SERIAL -> subscription == null ? newSerialLane() : lane;
+            case PER_SUBSCRIPTION -> newSerialLane();
+        };
+    }
+
+    private Lane newSerialLane() {
+        if (pausingOnOverflow) {
+            return new SerialExecutor(dispatchPolicy.getExecutor());
+        }
+        return new SerialExecutor(dispatchPolicy.getExecutor(), dispatchPolicy.getCapacity(), dispatchPolicy.getOverflow());
+    }
+
+    private void dispatch(final BaseFrame frame) {
+        if (frame instanceof ConnectedFrame connected) {
+            startHeartBeats(serverHeartBeat(connected));
+
+        } else if (frame instanceof ReceiptFrame receipt) {
+            receipts.received(receipt);
+
+        } else if (frame instanceof MessageFrame message) {
+            // the subscription header value was decoded with the frame, so the lookup costs no more than a hash probe
+            val id = message.getSubscription();
+            val subscription = id != null ? subscriptions.get(id) : null;
+            if (subscription != null) {
+                subscription.deliver(message);
+            }
+        }
+
+        if (listeners.has(frame)) {
+            if (dispatchPolicy.getMode() == DispatchPolicy.Mode.INLINE) {
+                // no task is allocated when the listeners are called by the receiving thread
+                listeners.dispatch(frame);
+            } else {
+                dispatchQueued(frame);
+            }
         }
     }
 
-    public void send(final BaseFrame frame) throws IOException {
+    /**
+     * Sends the frame to the server. The frame is queued and written according to the coalescing policy, possibly
+     * together with frames sent by other threads. Large bodies are written without being copied, so the body must not
+     * be modified until the returned future has completed.
+     *
+     * @param frame the frame to be sent
+     * @return a future completed when the frame has been flushed to the socket
+     * @throws IOException if the frame is not a client frame
+     */
+    public CompletableFuture<Void> send(final BaseFrame frame) throws IOException {
+        verifyFrameType(frame, CLIENT);
+
+        log.debug("Sending outbound frame: {}", frame);
+        return outbound.send(frame);
+    }
+
+    /**
+     * Sends the frame requesting a receipt: a receipt id is generated and added to the frame (unless it already has
+     * one), and the returned future is completed when the matching RECEIPT frame arrives - so any number of confirmed
+     * frames may be in flight at once. The future is failed if the frame cannot be sent, the receipt times out or the
+     * connection is closed first.
+     *
+     * The future is completed on the receiving thread, so dependent actions should not block (or should use the
+     * asynchronous variants of the <code>CompletableFuture</code> methods).
+     *
+     * @param frame the frame to be sent
+     * @return a future completed with the RECEIPT frame
+     * @throws IOException if the frame is not a client frame
+     */
+    public CompletableFuture<ReceiptFrame> sendWithReceipt(final BaseFrame frame) throws IOException {
         verifyFrameType(frame, CLIENT);
+        return receipted(frame, () -> outbound.send(frame));
+    }
+
+    // sends the frames in a single write, the last of them requesting a receipt
+    CompletableFuture<ReceiptFrame> sendAllWithReceipt(final List<BaseFrame> frames) {
+        return receipted(frames.get(frames.size() - 1), () -> outbound.sendAll(frames));
+    }
+
+    // the receipt is tracked before the frame is written, so that it cannot arrive first
+    private CompletableFuture<ReceiptFrame> receipted(
+        final BaseFrame frame, final Supplier<CompletableFuture<Void>> write
+    ) {
+        var receiptId = frame.getHeader(RECEIPT);
+        if (receiptId == null) {
+            receiptId = receipts.nextId();
+            frame.setHeader(RECEIPT, receiptId);
+        }
+
+        val receipt = receipts.track(receiptId, receiptTimeoutMillis, MILLISECONDS);
+
+        val id = receiptId;
+        write.get().whenComplete((result, failure) -> {
+            if (failure != null) {
+                receipts.fail(id, failure);
+            }
+        });
+        return receipt;
+    }
+
+    // the queued listener tasks count against the inbound buffer, as the messages of the subscriptions do
+    private void dispatchQueued(final BaseFrame frame) {
+        buffered.acquire();
+        try {
+            val queued = lane.offer(() -> {
+                try {
+                    listeners.dispatch(frame);
+                } finally {
+                    buffered.release(1);
+                }
+            });
+            if (!queued) {
+                buffered.release(1);
+            }
+        } catch (RejectedExecutionException e) {
+            buffered.release(1);
+            throw e;
+        }
+    }
 
-        log.info("Sending outbound frame: {}", frame);
-        frame.writeTo(output);
-        output.flush();
+    /**
+     * Registers a listener of the received frames of the given type. Listeners may be added and removed at any time,
+     * from any thread.
+     *
+     * @param frameType the type of frame
+     * @param handler   the listener
+     * @return the registration, used to remove the listener
+     */
+    public Registration on(final Class<? extends BaseFrame> frameType, final Consumer<BaseFrame> handler) {
+        return listeners.add(frameType, handler);
     }
 
-    public void on(final Class<? extends BaseFrame> frameType, final Consumer<BaseFrame> handler) {
-        listeners.computeIfAbsent(frameType, key -> new LinkedList<>()).add(handler);
+    /**
+     * Registers a listener called (once) when the connection is closed - by the client, the server or a failure.
+     *
+     * @param listener the listener, called with the failure which closed the connection (or <code>null</code>)
+     * @return the registration, used to remove the listener
+     */
+    public Registration onClose(final Consumer<Throwable> listener) {
+        closeListeners.add(listener);
+        return () -> closeListeners.remove(listener);
+    }
+
+    /**
+     * Subscribes with the provided SUBSCRIBE frame, routing the MESSAGE frames of the subscription (those with its id
+     * as their <code>subscription</code> header) directly to the handler. The handler is registered before the frame is
+     * sent, so no message is missed. The MESSAGE frame listeners registered with <code>on(...)</code> still receive all
+     * messages.
+     *
+     * @param frame   the SUBSCRIBE frame, which must have an id
+     * @param handler the handler of the messages of the subscription
+     * @return the registration, which unsubscribes (sending an UNSUBSCRIBE frame) when cancelled
+     * @throws IOException if there is a problem sending the frame
+     */
+    public Registration subscribe(final SubscribeFrame frame, final Consumer<MessageFrame> handler) throws IOException {
+        val id = frame.getId();
+        if (id == null) {
+            throw new IllegalArgumentException("The subscription id is required.");
+        }
+
+        if (prefetch > 0 && frame.getPrefetchSize() == null) {
+            frame.setPrefetchSize(prefetch);
+        }
+        val limit = flow.limit(frame.getPrefetchSize() != null ? frame.getPrefetchSize() : 0);
+
+        val ackMode = AckMode.fromHeader(frame.getAck());
+        val acknowledger = ackMode == AckMode.AUTO ? null : new Acknowledger(
+            id, ackMode, ackPolicy, HashedTimerWheel.shared(), timedWrites, frames -> outbound.sendAll(frames),
+            limit::release
+        );
+
+        val subscription = new Subscription(id, frame.getDestination(), handler, acknowledger, limit, buffered);
+        subscription.lane(newLane(subscription));
+        if (subscriptions.putIfAbsent(id, subscription) != null) {
+            throw new IllegalArgumentException("Subscription already exists: " + id);
+        }
+
+        try {
+            send(frame);
+        } catch (IOException | RuntimeException e) {
+            subscriptions.remove(id, subscription);
+            limit.close();
+            throw e;
+        }
+
+        return () -> {
+            if (subscriptions.remove(id, subscription)) {
+                // the messages of the subscription no longer hold back reading
+                limit.close();
+
+                if (acknowledger != null) {
+                    // the acknowledgements held back are written before the subscription is ended
+                    acknowledger.flush();
+                }
+
+                try {
+                    send(new UnsubscribeFrame(id)).whenComplete((result, failure) -> {
+                        if (failure != null) {
+                            log.warn("Unable to unsubscribe ({}): {}", id, failure.getMessage());
+                        }
+                    });
+                } catch (IOException e) {
+                    log.warn("Unable to unsubscribe ({}): {}", id, e.getMessage());
+                }
+            }
+        };
+    }
+
+    /**
+     * Provides the messages of a subscription as a publisher. The subscription is started (the SUBSCRIBE frame is sent)
+     * when the publisher is subscribed to - by a single subscriber - and ended (with an UNSUBSCRIBE frame) when the
+     * subscriber cancels.
+     *
+     * The demand of the subscriber is the credit of the subscription: the messages received beyond it are buffered up
+     * to the prefetch of the subscription (the <code>activemq.prefetchSize</code> header of the frame, or else the
+     * default prefetch of the client, or else <code>Flow.defaultBufferSize()</code>), after which reading from the
+     * connection is paused until more messages are requested. With the <code>client</code> and
+     * <code>client-individual</code> acknowledgement modes, each message is acknowledged once the subscriber has been
+     * given it.
+     *
+     * @param frame the SUBSCRIBE frame, which must have an id
+     * @return the publisher of the messages of the subscription
+     */
+    public Flow.Publisher<MessageFrame> publisher(final SubscribeFrame frame) {
+        if (frame.getPrefetchSize() == null) {
+            frame.setPrefetchSize(prefetch > 0 ? prefetch : Flow.defaultBufferSize());
+        }
+        return new MessagePublisher(this, frame, flow.limit(frame.getPrefetchSize()));
+    }
+
+    /**
+     * Begins a transaction, with a generated id. Nothing is written until the transaction is committed.
+     *
+     * @return the transaction
+     */
+    public Transaction begin() {
+        return new Transaction(this, "tx-" + transactionIds.incrementAndGet());
+    }
+
+    /**
+     * Acknowledges the message, received on a <code>client</code> or <code>client-individual</code> subscription. In the
+     * <code>client</code> mode, all the messages received on the subscription before it are acknowledged as well. The
+     * acknowledgement may be held back, to be written with others, according to the configured {@link AckPolicy}.
+     *
+     * @param message the message
+     * @return a future completed when the acknowledgement has been written
+     * @throws IllegalArgumentException if the message is not from a subscription requiring acknowledgements
+     */
+    public CompletableFuture<Void> ack(final MessageFrame message) {
+        return acknowledger(message).ack(message);
+    }
+
+    /**
+     * Rejects the message, received on a <code>client</code> or <code>client-individual</code> subscription. The NACK
+     * frame is written right away, together with any acknowledgements held back.
+     *
+     * @param message the message
+     * @return a future completed when the NACK frame has been written
+     * @throws IllegalArgumentException if the message is not from a subscription requiring acknowledgements
+     */
+    public CompletableFuture<Void> nack(final MessageFrame message) {
+        return acknowledger(message).nack(message);
+    }
+
+    // the ACK frame of the message, to be written with a transaction
+    AckFrame transactedAck(final MessageFrame message) {
+        return acknowledger(message).transacted(message);
+    }
+
+    // the message is no longer outstanding once the transaction acknowledging it has been committed
+    void committedAck(final MessageFrame message) {
+        val subscription = subscriptions.get(message.getSubscription());
+        if (subscription != null && subscription.getAcknowledger() != null) {
+            subscription.getAcknowledger().committed(message);
+        }
+    }
+
+    private Acknowledger acknowledger(final MessageFrame message) {
+        val id = message.getSubscription();
+        val subscription = id != null ? subscriptions.get(id) : null;
+        if (subscription == null || subscription.getAcknowledger() == null) {
+            throw new IllegalArgumentException("The message is not from a subscription requiring acknowledgement: " + id);
+        }
+        return subscription.getAcknowledger();
+    }
+
+    private void resumeReading() {
+        val reading = transport;
+        if (reading != null) {
+            reading.resumeReading();
+        }
+    }
+
+    // a malformed heart-beat header is taken as no heart-beating, rather than failing the connection
+    private static HeartBeat serverHeartBeat(final ConnectedFrame connected) {
+        try {
+            return connected.getHeartBeat();
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring the heart-beat of the server: {}", e.getMessage());
+            return HeartBeat.NONE;
+        }
+    }
+
+    private void startHeartBeats(final HeartBeat server) {
+        heartBeating = true;
+
+        val sendInterval = heartBeat.negotiateSend(server);
+        if (sendInterval > 0) {
+            sendHeartBeats(MILLISECONDS.toNanos(sendInterval));
+        }
+
+        val receiveInterval = heartBeat.negotiateReceive(server);
+        if (receiveInterval > 0) {
+            checkHeartBeats(MILLISECONDS.toNanos(receiveInterval * HEART_BEAT_TOLERANCE));
+        }
+
+        log.debug("Heart-beats: sending every {}ms, receiving every {}ms.", sendInterval, receiveInterval);
+    }
+
+    // checks twice per interval, so that the time between two writes never exceeds the interval
+    private void sendHeartBeats(final long intervalNanos) {
+        if (!heartBeating) {
+            return;
+        }
+        if (System.nanoTime() - outbound.lastWriteNanos() >= intervalNanos / 2) {
+            // a blocking write stalls its thread while the socket buffer is full - the very case of a slow server
+            timedWrites.execute(outbound::heartBeat);
+        }
+        sendingHeartBeats = HashedTimerWheel.shared().schedule(() -> sendHeartBeats(intervalNanos), intervalNanos / 2, NANOSECONDS);
+    }
+
+    private void checkHeartBeats(final long timeoutNanos) {
+        if (!heartBeating) {
+            return;
+        }
+
+        val idle = System.nanoTime() - lastReadNanos;
+        if (idle >= timeoutNanos) {
+            log.warn("Nothing received from the server for {}ms, closing the connection.", NANOSECONDS.toMillis(idle));
+            closeCause = new TimeoutException(
+                "No heart-beat received from the server for " + NANOSECONDS.toMillis(idle) + "ms."
+            );
+            try {
+                transport.close();
+            } catch (IOException e) {
+                log.warn("Unable to close connection: {}", e.getMessage(), e);
+            }
+        } else {
+            checkingHeartBeats = HashedTimerWheel.shared().schedule(() -> checkHeartBeats(timeoutNanos), timeoutNanos - idle, NANOSECONDS);
+        }
+    }
+
+    private void stopHeartBeats() {
+        heartBeating = false;
+
+        val sending = sendingHeartBeats;
+        if (sending != null) {
+            sending.cancel();
+        }
+        val checking = checkingHeartBeats;
+        if (checking != null) {
+            checking.cancel();
+        }
     }
 
     public void disconnect() throws IOException {
+        stopHeartBeats();
         // FIXME: send disconnect message (and await ACK)
 
-        if (socket != null) {
-            socket.close();
+        if (transport != null) {
+            transport.close();
+        }
+        if (ownedExecutor) {
+            executor.shutdown();
         }
         log.info("Disconnected.");
     }
 
     private static void verifyFrameType(final BaseFrame frame, final Type expectedType) throws IOException {
-        if (frame.getClass().getAnnotation(FrameType.class).value() != expectedType) {
+        if (frame.getFrameType() != expectedType) {
             throw new IOException("Wrong frame type: " + frame);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import io.github.cjstehno.trample.stomp.MessageFrame;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import static lombok.AccessLevel.PACKAGE;
+
+/**
+ * The client-side state of a subscription, which the MESSAGE frames carrying its id are routed to.
+ */
+@RequiredArgsConstructor(access = PACKAGE)
+final class Subscription {
+
+    @Getter private final String id;
+    @Getter private final String destination;
+    private final Consumer<MessageFrame> handler;
+
+    // null for the auto acknowledgement mode
+    @Getter private final Acknowledger acknowledger;
+
+    // the messages delivered and not yet handled (auto mode) or acknowledged (client modes), limited by the prefetch
+    @Getter private final FlowControl.Limit prefetch;
+
+    // the messages delivered and not yet handled, limited by the inbound buffer of the client
+    private final FlowControl.Limit buffer;
+    private Lane lane;
+
+    // the dispatch lane is set before the subscription is published
+    void lane(final Lane lane) {
+        this.lane = lane;
+    }
+
+    void deliver(final MessageFrame message) {
+        prefetch.acquire();
+        buffer.acquire();
+        if (acknowledger != null) {
+            acknowledger.delivered(message);
+        }
+
+        try {
+            val queued = lane.offer(() -> {
+                try {
+                    handler.accept(message);
+                } finally {
+                    handled();
+                }
+            });
+            if (!queued) {
+                // a discarded message is never handled, nor acknowledged
+                if (acknowledger != null) {
+                    acknowledger.discarded(message);
+                }
+                handled();
+            }
+        } catch (RejectedExecutionException e) {
+            handled();
+            throw e;
+        }
+    }
+
+    private void handled() {
+        buffer.release(1);
+        if (acknowledger == null) {
+            prefetch.release(1);
+        }
+    }
+}
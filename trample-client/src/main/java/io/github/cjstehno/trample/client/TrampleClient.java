@@ -15,6 +15,226 @@
  */
 package io.github.cjstehno.trample.client;
 
-// FIXME: this is the high-level client with methods for the various client features
+import io.github.cjstehno.trample.stomp.BaseFrame;
+import io.github.cjstehno.trample.stomp.ConnectedFrame;
+import io.github.cjstehno.trample.stomp.DisconnectFrame;
+import io.github.cjstehno.trample.stomp.ErrorFrame;
+import io.github.cjstehno.trample.stomp.MessageFrame;
+import io.github.cjstehno.trample.stomp.ReceiptFrame;
+import io.github.cjstehno.trample.stomp.SendFrame;
+import io.github.cjstehno.trample.stomp.SubscribeFrame;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * The high-level STOMP client, built on a {@link StompClient}. Every operation is asynchronous: it returns as soon as
+ * its frame has been queued, with a <code>CompletableFuture</code> for its outcome, so no thread is held per pending
+ * operation.
+ *
+ * The underlying client may be configured (transport, executor, dispatching, etc) before it is wrapped.
+ */
+@Slf4j @RequiredArgsConstructor
 public class TrampleClient {
+
+    @Getter private final StompClient client;
+    private final AtomicLong subscriptionIds = new AtomicLong();
+
+    /**
+     * Connects to the server.
+     *
+     * @return a future completed with the CONNECTED frame of the server, or failed by an ERROR frame or a closed
+     * connection
+     */
+    public CompletableFuture<ConnectedFrame> connect() {
+        val connected = new CompletableFuture<ConnectedFrame>();
+
+        val onConnected = client.on(ConnectedFrame.class, frame -> connected.complete((ConnectedFrame) frame));
+        val onError = client.on(ErrorFrame.class, frame -> connected.completeExceptionally(
+            new IOException("Connection refused: " + ((ErrorFrame) frame).getMessage())
+        ));
+        val onClose = client.onClose(cause -> connected.completeExceptionally(
+            cause != null ? cause : new IOException("Connection closed.")
+        ));
+
+        connected.whenComplete((frame, failure) -> {
+            onConnected.cancel();
+            onError.cancel();
+            onClose.cancel();
+        });
+
+        try {
+            client.connect();
+        } catch (IOException e) {
+            connected.completeExceptionally(e);
+        }
+        return connected;
+    }
+
+    /**
+     * Subscribes to the destination, with an automatically assigned subscription id.
+     *
+     * @param destination the destination
+     * @param handler     the handler of the received messages
+     * @return the registration, which unsubscribes when cancelled
+     * @throws IOException if there is a problem subscribing
+     */
+    public Registration subscribe(final String destination, final Consumer<MessageFrame> handler) throws IOException {
+        return client.subscribe(new SubscribeFrame(destination, "sub-" + subscriptionIds.incrementAndGet()), handler);
+    }
+
+    /**
+     * Subscribes to the destination, with an automatically assigned subscription id and the given acknowledgement
+     * mode. The messages of <code>client</code> and <code>client-individual</code> subscriptions must be acknowledged
+     * with <code>ack(...)</code> or rejected with <code>nack(...)</code>.
+     *
+     * @param destination the destination
+     * @param ackMode     the acknowledgement mode
+     * @param handler     the handler of the received messages
+     * @return the registration, which unsubscribes when cancelled
+     * @throws IOException if there is a problem subscribing
+     */
+    public Registration subscribe(
+        final String destination, final AckMode ackMode, final Consumer<MessageFrame> handler
+    ) throws IOException {
+        val frame = new SubscribeFrame(destination, "sub-" + subscriptionIds.incrementAndGet());
+        frame.setAck(ackMode.getHeaderValue());
+        return client.subscribe(frame, handler);
+    }
+
+    /**
+     * Provides the messages of the destination as a publisher, with an automatically assigned subscription id (see
+     * {@link StompClient#publisher(SubscribeFrame)}).
+     *
+     * @param destination the destination
+     * @param ackMode     the acknowledgement mode
+     * @return the publisher, which subscribes once subscribed to
+     */
+    public Flow.Publisher<MessageFrame> publisher(final String destination, final AckMode ackMode) {
+        val frame = new SubscribeFrame(destination, "sub-" + subscriptionIds.incrementAndGet());
+        frame.setAck(ackMode.getHeaderValue());
+        return client.publisher(frame);
+    }
+
+    /**
+     * Acknowledges the message (see {@link StompClient#ack(MessageFrame)}).
+     *
+     * @param message the message
+     * @return a future completed when the acknowledgement has been written
+     */
+    public CompletableFuture<Void> ack(final MessageFrame message) {
+        return client.ack(message);
+    }
+
+    /**
+     * Rejects the message (see {@link StompClient#nack(MessageFrame)}).
+     *
+     * @param message the message
+     * @return a future completed when the NACK frame has been written
+     */
+    public CompletableFuture<Void> nack(final MessageFrame message) {
+        return client.nack(message);
+    }
+
+    /**
+     * Sends a message with a text body to the destination.
+     *
+     * @param destination the destination
+     * @param body        the message body
+     * @return a future completed when the message has been written to the socket
+     */
+    public CompletableFuture<Void> send(final String destination, final String body) {
+        val frame = new SendFrame(destination);
+        frame.setBody(body);
+        return send(frame);
+    }
+
+    /**
+     * Sends a message with a binary body to the destination. The body is not copied, so it must not be modified until
+     * the returned future has completed.
+     *
+     * @param destination the destination
+     * @param body        the message body
+     * @return a future completed when the message has been written to the socket
+     */
+    public CompletableFuture<Void> send(final String destination, final ByteBuffer body) {
+        val frame = new SendFrame(destination);
+        frame.setBody(body);
+        return send(frame);
+    }
+
+    /**
+     * Sends the SEND frame.
+     *
+     * @param frame the frame
+     * @return a future completed when the message has been written to the socket
+     */
+    public CompletableFuture<Void> send(final SendFrame frame) {
+        return write(frame);
+    }
+
+    /**
+     * Sends the SEND frame requesting a receipt from the server.
+     *
+     * @param frame the frame
+     * @return a future completed with the RECEIPT frame once the server has received the message
+     */
+    public CompletableFuture<ReceiptFrame> sendConfirmed(final SendFrame frame) {
+        return writeWithReceipt(frame);
+    }
+
+    /**
+     * Begins a transaction (see {@link StompClient#begin()}).
+     *
+     * @return the transaction
+     */
+    public Transaction begin() {
+        return client.begin();
+    }
+
+    /**
+     * Disconnects gracefully: a DISCONNECT frame requesting a receipt is sent and the connection is closed once the
+     * receipt has arrived - so that all previously sent frames have been received by the server.
+     *
+     * @return a future completed once disconnected (or failed if the connection was lost first)
+     */
+    public CompletableFuture<Void> disconnect() {
+        return writeWithReceipt(new DisconnectFrame()).handle((receipt, failure) -> {
+            try {
+                client.disconnect();
+            } catch (IOException e) {
+                log.warn("Unable to close connection: {}", e.getMessage(), e);
+            }
+
+            if (failure != null) {
+                throw new CompletionException(failure);
+            }
+            return null;
+        });
+    }
+
+    private CompletableFuture<Void> write(final BaseFrame frame) {
+        try {
+            return client.send(frame);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private CompletableFuture<ReceiptFrame> writeWithReceipt(final BaseFrame frame) {
+        try {
+            return client.sendWithReceipt(frame);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 }
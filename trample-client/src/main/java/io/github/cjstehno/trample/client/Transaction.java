@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import io.github.cjstehno.trample.stomp.BaseFrame;
+import io.github.cjstehno.trample.stomp.BeginFrame;
+import io.github.cjstehno.trample.stomp.CommitFrame;
+import io.github.cjstehno.trample.stomp.MessageFrame;
+import io.github.cjstehno.trample.stomp.ReceiptFrame;
+import io.github.cjstehno.trample.stomp.SendFrame;
+import lombok.Getter;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A transaction, whose frames are collected until it is committed: the BEGIN frame, the frames of the transaction
+ * (stamped with its <code>transaction</code> header) and the COMMIT frame are then written as a single pipelined batch,
+ * with a single flush, and the outcome of the transaction is the receipt of the COMMIT frame. Nothing is written for
+ * an aborted transaction.
+ *
+ * A transaction is meant to be used by a single thread.
+ */
+public final class Transaction {
+
+    /**
+     * The transaction id.
+     */
+    @Getter private final String id;
+
+    private final StompClient client;
+    private final List<BaseFrame> frames = new ArrayList<>();
+    // the messages acknowledged by the transaction, by subscription and ack id
+    private final Map<String, MessageFrame> acknowledged = new LinkedHashMap<>();
+    private boolean finished;
+
+    Transaction(final StompClient client, final String id) {
+        this.client = client;
+        this.id = id;
+        frames.add(new BeginFrame(id));
+    }
+
+    /**
+     * Adds a message with a text body, for the destination, to the transaction.
+     *
+     * @param destination the destination
+     * @param body        the message body
+     * @return a reference to this transaction
+     */
+    public Transaction send(final String destination, final String body) {
+        val frame = new SendFrame(destination);
+        frame.setBody(body);
+        return send(frame);
+    }
+
+    /**
+     * Adds the SEND frame to the transaction. The body is not copied, so it must not be modified until the transaction
+     * has been committed.
+     *
+     * @param frame the frame
+     * @return a reference to this transaction
+     * @throws IllegalArgumentException if the frame belongs to another transaction
+     */
+    public Transaction send(final SendFrame frame) {
+        verifyOpen();
+
+        val transaction = frame.getTransaction();
+        if (transaction == null) {
+            frame.setTransaction(id);
+        } else if (!transaction.equals(id)) {
+            throw new IllegalArgumentException("The frame belongs to another transaction: " + transaction);
+        }
+
+        frames.add(frame);
+        return this;
+    }
+
+    /**
+     * Adds the acknowledgement of the message (received on a <code>client</code> or <code>client-individual</code>
+     * subscription) to the transaction. The message remains outstanding until the transaction has been committed: if
+     * it is aborted, or the commit fails, the message may still be acknowledged or rejected. A message which has
+     * already been acknowledged is skipped.
+     *
+     * @param message the message
+     * @return a reference to this transaction
+     * @throws IllegalArgumentException if the message is not from a subscription requiring acknowledgements
+     */
+    public Transaction ack(final MessageFrame message) {
+        verifyOpen();
+
+        val key = message.getSubscription() + '/' + Acknowledger.ackId(message);
+        if (acknowledged.containsKey(key)) {
+            return this;
+        }
+
+        val ack = client.transactedAck(message);
+        if (ack != null) {
+            ack.setTransaction(id);
+            frames.add(ack);
+            acknowledged.put(key, message);
+        }
+        return this;
+    }
+
+    /**
+     * Commits the transaction, writing all of its frames in a single batch.
+     *
+     * @return a future completed with the receipt of the COMMIT frame, once the server has committed the transaction
+     */
+    public CompletableFuture<ReceiptFrame> commit() {
+        verifyOpen();
+        finished = true;
+
+        frames.add(new CommitFrame(id));
+        return client.sendAllWithReceipt(frames).thenApply(receipt -> {
+            acknowledged.values().forEach(client::committedAck);
+            return receipt;
+        });
+    }
+
+    /**
+     * Aborts the transaction. Since none of its frames has been written, they are simply discarded.
+     */
+    public void abort() {
+        verifyOpen();
+        finished = true;
+
+        frames.clear();
+        acknowledged.clear();
+    }
+
+    private void verifyOpen() {
+        if (finished) {
+            throw new IllegalStateException("The transaction has already been committed or aborted: " + id);
+        }
+    }
+}
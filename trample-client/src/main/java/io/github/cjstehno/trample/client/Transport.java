@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The connection used by a client to exchange bytes with the server. Inbound bytes are pushed to an {@link Inbound}
+ * handler as they arrive, while outbound bytes are written as (gathering) sequences of buffers.
+ */
+interface Transport {
+
+    /**
+     * Opens the connection to the server and starts delivering the received bytes to the inbound handler.
+     *
+     * @param address the address of the server
+     * @param inbound the handler of the inbound bytes
+     * @throws IOException if the connection cannot be opened
+     */
+    void open(InetSocketAddress address, Inbound inbound) throws IOException;
+
+    /**
+     * Writes the remaining bytes of the buffers, in order. The buffers must not be modified until the returned future
+     * has completed.
+     *
+     * @param buffers the buffers to be written
+     * @return a future completed once all the bytes have been written to the socket
+     */
+    CompletableFuture<Void> write(ByteBuffer[] buffers);
+
+    /**
+     * Resumes reading from the connection, if it was paused by the inbound handler and the handler is no longer
+     * paused. May be called from any thread.
+     */
+    void resumeReading();
+
+    /**
+     * Closes the connection.
+     *
+     * @throws IOException if there is a problem closing the connection
+     */
+    void close() throws IOException;
+
+    /**
+     * The handler of the bytes received by a transport.
+     */
+    interface Inbound {
+
+        /**
+         * Called with each chunk of received bytes. The chunk is only valid for the duration of the call, so its
+         * content must be consumed (or copied) before returning.
+         *
+         * @param chunk the received bytes
+         * @throws IOException if the bytes cannot be handled, which closes the connection
+         */
+        void received(ByteBuffer chunk) throws IOException;
+
+        /**
+         * Whether the handler cannot accept more bytes for now. This is checked after each chunk: while paused, no
+         * more bytes are read from the connection (until <code>resumeReading()</code> is called), so that the server
+         * is held back by the TCP flow control.
+         *
+         * @return true if reading is to be paused
+         */
+        default boolean paused() {
+            return false;
+        }
+
+        /**
+         * Called once, when the connection has been closed - either by the server, by a failure or by the client.
+         *
+         * @param cause the failure which closed the connection, or <code>null</code>
+         */
+        void closed(Throwable cause);
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Access to the virtual threads of the Java runtime (Java 21 and later), while the library itself still targets Java 17.
+ * The virtual thread executor is looked up once, reflectively, and is reported as unavailable on older runtimes (or
+ * when it is still a preview feature which has not been enabled).
+ */
+@Slf4j @NoArgsConstructor(access = PRIVATE)
+public final class VirtualThreads {
+
+    private static final MethodHandle FACTORY = lookupFactory();
+
+    /**
+     * Determines whether virtual threads are available on the current runtime.
+     *
+     * @return true if virtual threads are available
+     */
+    public static boolean available() {
+        return FACTORY != null;
+    }
+
+    /**
+     * Creates an executor which starts a new virtual thread for each task (i.e.
+     * <code>Executors.newVirtualThreadPerTaskExecutor()</code>).
+     *
+     * @return the virtual thread executor
+     * @throws UnsupportedOperationException if virtual threads are not available
+     */
+    public static ExecutorService newExecutor() {
+        if (FACTORY == null) {
+            throw new UnsupportedOperationException("Virtual threads are not available on Java " + Runtime.version().feature() + ".");
+        }
+        try {
+            return (ExecutorService) FACTORY.invokeExact();
+        } catch (Throwable t) {
+            throw new IllegalStateException("Unable to create virtual thread executor: " + t.getMessage(), t);
+        }
+    }
+
+    private static MethodHandle lookupFactory() {
+        try {
+            val factory = MethodHandles.publicLookup().findStatic(
+                Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class)
+            );
+
+            // make sure it is usable (it throws when it is a preview feature which is not enabled)
+            ((ExecutorService) factory.invokeExact()).shutdown();
+            return factory;
+
+        } catch (Throwable t) {
+            log.debug("Virtual threads are not available: {}", t.toString());
+            return null;
+        }
+    }
+}
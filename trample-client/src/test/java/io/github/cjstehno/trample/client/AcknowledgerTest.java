@@ -0,0 +1,236 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import io.github.cjstehno.trample.stomp.AckFrame;
+import io.github.cjstehno.trample.stomp.BaseFrame;
+import io.github.cjstehno.trample.stomp.MessageFrame;
+import io.github.cjstehno.trample.stomp.NackFrame;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.cjstehno.trample.client.AckMode.CLIENT;
+import static io.github.cjstehno.trample.client.AckMode.CLIENT_INDIVIDUAL;
+import static io.github.cjstehno.trample.stomp.MessageFrame.MESSAGE_ID_HEADER;
+import static io.github.cjstehno.trample.stomp.StompHeaders.SUBSCRIPTION;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AcknowledgerTest {
+
+    private final HashedTimerWheel timer = new HashedTimerWheel("test-timer", 5, MILLISECONDS, 8);
+    private final List<List<BaseFrame>> writes = new CopyOnWriteArrayList<>();
+    private final AtomicInteger acknowledged = new AtomicInteger();
+    private final List<String> writingThreads = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "writer"));
+
+    @AfterEach void afterEach() {
+        executor.shutdown();
+    }
+
+    @Test void cumulative() {
+        val acks = acknowledger(CLIENT, AckPolicy.batched(3, 1, SECONDS));
+        val messages = deliver(acks, 5);
+        assertEquals(5, acks.unacknowledged());
+
+        // acknowledging the third message covers the first two
+        acks.ack(messages.get(2));
+        assertEquals(2, acks.unacknowledged());
+        assertEquals(3, acknowledged.get());
+        assertTrue(acks.ack(messages.get(0)).isDone());
+
+        acks.ack(messages.get(3));
+        val written = acks.ack(messages.get(4));
+        assertTrue(written.isDone());
+        assertEquals(0, acks.unacknowledged());
+
+        // a single ACK frame, for the latest message
+        assertEquals(1, writes.size());
+        assertEquals(List.of("a-4"), ids(writes.get(0)));
+    }
+
+    @Test void individual() {
+        val acks = acknowledger(CLIENT_INDIVIDUAL, AckPolicy.batched(3, 1, SECONDS));
+        val messages = deliver(acks, 4);
+
+        val first = acks.ack(messages.get(3));
+        acks.ack(messages.get(1));
+        assertFalse(first.isDone());
+        assertEquals(0, writes.size());
+
+        acks.ack(messages.get(0));
+        assertTrue(first.isDone());
+        assertEquals(1, acks.unacknowledged());
+
+        // all the ACK frames of the batch in a single write
+        assertEquals(1, writes.size());
+        assertEquals(List.of("a-3", "a-1", "a-0"), ids(writes.get(0)));
+    }
+
+    @Test void immediate() {
+        val acks = acknowledger(CLIENT_INDIVIDUAL, AckPolicy.immediate());
+        val messages = deliver(acks, 2);
+
+        assertTrue(acks.ack(messages.get(0)).isDone());
+        assertTrue(acks.ack(messages.get(1)).isDone());
+        assertEquals(2, writes.size());
+    }
+
+    @Test void timeWindow() {
+        val acks = acknowledger(CLIENT_INDIVIDUAL, AckPolicy.batched(100, 20, MILLISECONDS));
+        val messages = deliver(acks, 3);
+
+        val written = acks.ack(messages.get(0));
+        acks.ack(messages.get(1));
+        assertFalse(written.isDone());
+
+        await().atMost(5, SECONDS).until(written::isDone);
+        assertEquals(1, writes.size());
+        assertEquals(List.of("a-0", "a-1"), ids(writes.get(0)));
+
+        // the timer thread hands the write off to the executor
+        assertEquals(List.of("writer"), writingThreads);
+    }
+
+    @Test void writingOutsideLock() throws Exception {
+        val blocked = new CountDownLatch(1);
+        val release = new CountDownLatch(1);
+        val acks = new Acknowledger("sub-1", CLIENT_INDIVIDUAL, AckPolicy.immediate(), timer, executor, frames -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writes.add(frames);
+            return CompletableFuture.completedFuture(null);
+        }, acknowledged::addAndGet);
+        val messages = deliver(acks, 3);
+
+        val first = CompletableFuture.supplyAsync(() -> acks.ack(messages.get(0))).thenCompose(written -> written);
+        assertTrue(blocked.await(5, SECONDS));
+
+        // a blocked write holds back neither the deliveries nor the other acknowledgements, which it then writes
+        val late = new MessageFrame("/queue/a", "m-9");
+        late.setSubscription("sub-1");
+        late.setAck("a-9");
+        CompletableFuture.runAsync(() -> acks.delivered(late)).get(5, SECONDS);
+        val second = CompletableFuture.supplyAsync(() -> acks.ack(messages.get(1))).get(5, SECONDS);
+        assertFalse(second.isDone());
+
+        release.countDown();
+        CompletableFuture.allOf(first, second).get(5, SECONDS);
+        assertEquals(List.of(List.of("a-0"), List.of("a-1")), writes.stream().map(AcknowledgerTest::ids).toList());
+    }
+
+    @Test void rejecting() {
+        val acks = acknowledger(CLIENT_INDIVIDUAL, AckPolicy.batched(100, 1, SECONDS));
+        val messages = deliver(acks, 3);
+
+        acks.ack(messages.get(0));
+        assertTrue(acks.nack(messages.get(1)).isDone());
+        assertEquals(1, acks.unacknowledged());
+
+        // the pending acknowledgement is written first, with the NACK
+        assertEquals(1, writes.size());
+        assertInstanceOf(AckFrame.class, writes.get(0).get(0));
+        assertInstanceOf(NackFrame.class, writes.get(0).get(1));
+        assertEquals(List.of("a-0", "a-1"), ids(writes.get(0)));
+    }
+
+    @Test void cumulativeRejecting() {
+        val acks = acknowledger(CLIENT, AckPolicy.immediate());
+        val messages = deliver(acks, 3);
+
+        // only the rejected message is settled, the earlier one is still to be acknowledged
+        acks.nack(messages.get(1));
+        assertEquals(2, acks.unacknowledged());
+        assertEquals(List.of("a-1"), ids(writes.get(0)));
+        assertTrue(acks.nack(messages.get(1)).isDone());
+        assertEquals(1, writes.size());
+
+        acks.ack(messages.get(2));
+        assertEquals(0, acks.unacknowledged());
+        assertEquals(List.of("a-2"), ids(writes.get(1)));
+    }
+
+    @Test void transacted() {
+        val acks = acknowledger(CLIENT, AckPolicy.immediate());
+        val messages = deliver(acks, 3);
+
+        acks.ack(messages.get(0));
+        assertNull(acks.transacted(messages.get(0)));
+
+        // the message remains outstanding until the transaction has been committed
+        val ack = acks.transacted(messages.get(2));
+        assertEquals("a-2", ack.getId());
+        assertEquals(2, acks.unacknowledged());
+
+        acks.committed(messages.get(2));
+        assertEquals(0, acks.unacknowledged());
+        assertEquals(3, acknowledged.get());
+        assertNull(acks.transacted(messages.get(2)));
+        assertEquals(1, writes.size());
+    }
+
+    @Test void withoutAckHeader() {
+        val acks = acknowledger(CLIENT_INDIVIDUAL, AckPolicy.immediate());
+
+        val message = new MessageFrame("/queue/a", "m-1");
+        message.setSubscription("sub-1");
+        acks.delivered(message);
+        acks.ack(message);
+
+        val ack = writes.get(0).get(0);
+        assertEquals("m-1", ack.getHeader(MESSAGE_ID_HEADER));
+        assertEquals("sub-1", ack.getHeader(SUBSCRIPTION));
+    }
+
+    private Acknowledger acknowledger(final AckMode mode, final AckPolicy policy) {
+        return new Acknowledger("sub-1", mode, policy, timer, executor, frames -> {
+            writingThreads.add(Thread.currentThread().getName());
+            writes.add(frames);
+            return CompletableFuture.completedFuture(null);
+        }, acknowledged::addAndGet);
+    }
+
+    private static List<MessageFrame> deliver(final Acknowledger acks, final int count) {
+        val messages = new CopyOnWriteArrayList<MessageFrame>();
+        for (int i = 0; i < count; i++) {
+            val message = new MessageFrame("/queue/a", "m-" + i);
+            message.setSubscription("sub-1");
+            message.setAck("a-" + i);
+            acks.delivered(message);
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private static List<String> ids(final List<BaseFrame> frames) {
+        return frames.stream().map(frame -> frame.getHeader("id")).toList();
+    }
+}
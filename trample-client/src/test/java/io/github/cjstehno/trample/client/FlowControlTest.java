@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlowControlTest {
+
+    private final AtomicInteger resumed = new AtomicInteger();
+    private final FlowControl flow = new FlowControl(resumed::incrementAndGet);
+
+    @Test void limiting() {
+        val first = flow.limit(2);
+        val second = flow.limit(1);
+
+        first.acquire();
+        assertFalse(flow.paused());
+        first.acquire();
+        assertTrue(flow.paused());
+
+        second.acquire();
+        first.release(1);
+        assertTrue(flow.paused());
+        assertEquals(0, resumed.get());
+
+        // resumed once all the limits have been released
+        second.release(1);
+        assertFalse(flow.paused());
+        assertEquals(1, resumed.get());
+
+        first.acquire();
+        assertTrue(flow.paused());
+        first.release(2);
+        assertFalse(flow.paused());
+        assertEquals(2, resumed.get());
+        assertEquals(0, first.count());
+    }
+
+    @Test void unlimited() {
+        val limit = flow.limit(0);
+        for (int i = 0; i < 100; i++) {
+            limit.acquire();
+        }
+
+        assertFalse(flow.paused());
+        assertEquals(100, limit.count());
+    }
+
+    @Test void closing() {
+        val limit = flow.limit(1);
+        limit.acquire();
+        limit.acquire();
+        assertTrue(flow.paused());
+
+        limit.close();
+        assertFalse(flow.paused());
+        assertEquals(1, resumed.get());
+
+        // no longer limiting
+        limit.release(2);
+        limit.acquire();
+        assertFalse(flow.paused());
+        assertEquals(1, resumed.get());
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimerWheelTest {
+
+    // a small wheel, so that the longer timeouts need more than one round
+    private final HashedTimerWheel wheel = new HashedTimerWheel("test-timer", 5, MILLISECONDS, 8);
+
+    @Test void expiring() throws InterruptedException {
+        val done = new CountDownLatch(3);
+        val started = System.nanoTime();
+        val elapsed = new long[3];
+
+        wheel.schedule(() -> {
+            elapsed[0] = System.nanoTime() - started;
+            done.countDown();
+        }, 10, MILLISECONDS);
+        wheel.schedule(() -> {
+            elapsed[1] = System.nanoTime() - started;
+            done.countDown();
+        }, 100, MILLISECONDS);
+        wheel.schedule(() -> {
+            elapsed[2] = System.nanoTime() - started;
+            done.countDown();
+        }, 0, MILLISECONDS);
+
+        assertTrue(done.await(5, SECONDS));
+
+        // never early
+        assertTrue(elapsed[0] >= MILLISECONDS.toNanos(10));
+        assertTrue(elapsed[1] >= MILLISECONDS.toNanos(100));
+        assertTrue(elapsed[1] > elapsed[0]);
+    }
+
+    @Test void cancelling() throws InterruptedException {
+        val count = new AtomicInteger();
+        val done = new CountDownLatch(1);
+
+        val timeout = wheel.schedule(count::incrementAndGet, 20, MILLISECONDS);
+        wheel.schedule(done::countDown, 60, MILLISECONDS);
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+
+        assertTrue(done.await(5, SECONDS));
+        assertEquals(0, count.get());
+    }
+
+    @Test void manyTimeouts() throws InterruptedException {
+        val done = new CountDownLatch(10_000);
+        for (int i = 0; i < 10_000; i++) {
+            wheel.schedule(done::countDown, i % 100, MILLISECONDS);
+        }
+        assertTrue(done.await(5, SECONDS));
+    }
+
+    @Test void expiredNotCancellable() throws InterruptedException {
+        val done = new CountDownLatch(1);
+        val timeout = wheel.schedule(done::countDown, 1, MILLISECONDS);
+
+        assertTrue(done.await(5, SECONDS));
+        assertFalse(timeout.cancel());
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import io.github.cjstehno.trample.stomp.BaseFrame;
+import io.github.cjstehno.trample.stomp.ConnectedFrame;
+import io.github.cjstehno.trample.stomp.MessageFrame;
+import io.github.cjstehno.trample.stomp.ReceiptFrame;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListenerRegistryTest {
+
+    private final ListenerRegistry registry = new ListenerRegistry();
+
+    @Test void dispatchingByType() {
+        val messages = new ArrayList<BaseFrame>();
+        val receipts = new ArrayList<BaseFrame>();
+        registry.add(MessageFrame.class, messages::add);
+        registry.add(ReceiptFrame.class, receipts::add);
+
+        assertTrue(registry.dispatch(new MessageFrame("/queue/a", "m-1")));
+        assertFalse(registry.dispatch(new ConnectedFrame("1.2")));
+
+        assertEquals(1, messages.size());
+        assertEquals(0, receipts.size());
+    }
+
+    @Test void cancelling() {
+        val received = new ArrayList<String>();
+        final Consumer<BaseFrame> handler = frame -> received.add("handler");
+
+        val first = registry.add(MessageFrame.class, handler);
+        registry.add(MessageFrame.class, handler);
+        registry.add(MessageFrame.class, frame -> received.add("other"));
+
+        first.cancel();
+        first.cancel();
+        assertEquals(2, registry.count(MessageFrame.class));
+
+        registry.dispatch(new MessageFrame("/queue/a", "m-1"));
+        assertEquals(List.of("handler", "other"), received);
+    }
+
+    @Test void unsupportedType() {
+        assertThrows(IllegalArgumentException.class, () -> registry.add(BaseFrame.class, frame -> {}));
+    }
+
+    @Test void concurrentRegistration() throws InterruptedException {
+        val start = new CountDownLatch(1);
+        val count = new AtomicInteger();
+        val threads = new Thread[8];
+
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 500; i++) {
+                    val registration = registry.add(MessageFrame.class, frame -> count.incrementAndGet());
+                    registry.add(MessageFrame.class, frame -> {});
+                    registration.cancel();
+                }
+            });
+            threads[t].start();
+        }
+
+        start.countDown();
+        for (val thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(4000, registry.count(MessageFrame.class));
+        registry.dispatch(new MessageFrame("/queue/a", "m-1"));
+        assertEquals(0, count.get());
+    }
+}
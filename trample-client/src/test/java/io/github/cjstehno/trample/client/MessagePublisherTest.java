@@ -0,0 +1,210 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import io.github.cjstehno.trample.stomp.AckFrame;
+import io.github.cjstehno.trample.stomp.ConnectFrame;
+import io.github.cjstehno.trample.stomp.ConnectedFrame;
+import io.github.cjstehno.trample.stomp.HeartBeat;
+import io.github.cjstehno.trample.stomp.MessageFrame;
+import io.github.cjstehno.trample.stomp.SubscribeFrame;
+import io.github.cjstehno.trample.stomp.UnsubscribeFrame;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeoutException;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessagePublisherTest {
+
+    private StompServerStub server;
+    private StompClient client;
+
+    @BeforeEach void beforeEach() throws IOException {
+        server = new StompServerStub();
+        client = new StompClient("127.0.0.1", server.port()).eventLoopGroup(EventLoopGroup.shared());
+        client.connect();
+    }
+
+    @AfterEach void afterEach() throws IOException {
+        client.disconnect();
+        server.close();
+    }
+
+    @Test void publishing() throws Exception {
+        val subscriber = new RecordingSubscriber();
+        val publisher = client.publisher(new SubscribeFrame("/queue/a", "sub-1"));
+
+        // nothing is subscribed until the publisher is subscribed to
+        publisher.subscribe(subscriber);
+        val subscribe = server.receive(SubscribeFrame.class);
+        assertEquals("sub-1", subscribe.getId());
+        assertEquals(Flow.defaultBufferSize(), subscribe.getPrefetchSize());
+
+        for (int i = 1; i <= 3; i++) {
+            server.send(message("m-" + i));
+        }
+
+        // only the demanded messages are emitted
+        subscriber.subscription.request(1);
+        await().until(() -> subscriber.ids().equals(List.of("m-1")));
+        Thread.sleep(100);
+        assertEquals(1, subscriber.messages.size());
+
+        subscriber.subscription.request(5);
+        await().until(() -> subscriber.ids().equals(List.of("m-1", "m-2", "m-3")));
+
+        server.send(message("m-4"));
+        await().until(() -> subscriber.messages.size() == 4);
+
+        subscriber.subscription.cancel();
+        assertEquals("sub-1", server.receive(UnsubscribeFrame.class).getId());
+    }
+
+    @Test void acknowledging() throws Exception {
+        val subscriber = new RecordingSubscriber();
+
+        val frame = new SubscribeFrame("/queue/a", "sub-1");
+        frame.setAck(AckMode.CLIENT_INDIVIDUAL.getHeaderValue());
+        client.publisher(frame).subscribe(subscriber);
+        server.receive(SubscribeFrame.class);
+
+        server.send(message("m-1"));
+        server.send(message("m-2"));
+        Thread.sleep(100);
+
+        // acknowledged as they are emitted
+        subscriber.subscription.request(1);
+        assertEquals("m-1", server.receive(AckFrame.class).getId());
+
+        subscriber.subscription.request(1);
+        assertEquals("m-2", server.receive(AckFrame.class).getId());
+    }
+
+    @Test void backpressure() throws Exception {
+        val subscriber = new RecordingSubscriber();
+
+        val frame = new SubscribeFrame("/queue/a", "sub-1");
+        frame.setPrefetchSize(2);
+        client.publisher(frame).subscribe(subscriber);
+        server.receive(SubscribeFrame.class);
+
+        // without demand, the buffered messages pause reading once the prefetch is reached
+        server.send(message("m-1"));
+        server.send(message("m-2"));
+        Thread.sleep(100);
+        server.send(message("m-3"));
+        Thread.sleep(100);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        await().until(() -> subscriber.ids().equals(List.of("m-1", "m-2", "m-3")));
+    }
+
+    @Test void singleSubscriber() {
+        val publisher = client.publisher(new SubscribeFrame("/queue/a", "sub-1"));
+        publisher.subscribe(new RecordingSubscriber());
+
+        val second = new RecordingSubscriber();
+        publisher.subscribe(second);
+        assertInstanceOf(IllegalStateException.class, second.failure);
+    }
+
+    @Test void connectionClosed() throws Exception {
+        val subscriber = new RecordingSubscriber();
+        client.publisher(new SubscribeFrame("/queue/a", "sub-1")).subscribe(subscriber);
+        server.receive(SubscribeFrame.class);
+
+        server.send(message("m-1"));
+        server.send(message("m-2"));
+        subscriber.subscription.request(1);
+        await().until(() -> subscriber.messages.size() == 1);
+
+        // the buffered message is still emitted, and then the subscriber is completed
+        server.disconnectAll();
+        Thread.sleep(200);
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(1);
+        await().until(() -> subscriber.completed);
+        assertEquals(List.of("m-1", "m-2"), subscriber.ids());
+        assertNull(subscriber.failure);
+    }
+
+    @Test void connectionFailed() throws Exception {
+        server.responder((stub, frame) -> {
+            if (frame instanceof ConnectFrame) {
+                // promises heart-beats, but never sends them
+                val connected = new ConnectedFrame("1.2");
+                connected.setHeartBeat(new HeartBeat(50, 0));
+                stub.send(connected);
+            }
+        });
+        val failing = new StompClient("127.0.0.1", server.port()).eventLoopGroup(EventLoopGroup.shared())
+            .heartBeat(new HeartBeat(0, 50));
+        failing.connect();
+
+        val subscriber = new RecordingSubscriber();
+        failing.publisher(new SubscribeFrame("/queue/a", "sub-1")).subscribe(subscriber);
+
+        await().until(() -> subscriber.failure != null);
+        assertInstanceOf(TimeoutException.class, subscriber.failure);
+        assertFalse(subscriber.completed);
+        failing.disconnect();
+    }
+
+    private static MessageFrame message(final String id) {
+        val message = new MessageFrame("/queue/a", id);
+        message.setSubscription("sub-1");
+        message.setAck(id);
+        return message;
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<MessageFrame> {
+
+        private final List<MessageFrame> messages = new CopyOnWriteArrayList<>();
+        private volatile Flow.Subscription subscription;
+        private volatile Throwable failure;
+        private volatile boolean completed;
+
+        @Override public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override public void onNext(final MessageFrame item) {
+            messages.add(item);
+        }
+
+        @Override public void onError(final Throwable throwable) {
+            failure = throwable;
+        }
+
+        @Override public void onComplete() {
+            completed = true;
+        }
+
+        List<String> ids() {
+            return messages.stream().map(MessageFrame::getMessageId).toList();
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import io.github.cjstehno.trample.stomp.AckFrame;
+import io.github.cjstehno.trample.stomp.SendFrame;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboundQueueTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "writer"));
+
+    @AfterEach void afterEach() {
+        executor.shutdown();
+    }
+
+    @Test void noCoalescing() {
+        val transport = new RecordingTransport(true);
+        val queue = queue(transport, CoalescingPolicy.none());
+
+        val first = queue.send(new AckFrame("a-1"));
+        val second = queue.send(new AckFrame("a-2"));
+
+        assertTrue(first.isDone() && second.isDone());
+        assertEquals(2, transport.writes.size());
+    }
+
+    @Test void coalescingWhileWriting() {
+        val transport = new RecordingTransport(false);
+        val queue = queue(transport, CoalescingPolicy.whenIdle());
+
+        val first = queue.send(new AckFrame("a-1"));
+        val others = List.of(queue.send(new AckFrame("a-2")), queue.send(new AckFrame("a-3")), queue.send(new AckFrame("a-4")));
+
+        // the first is written on its own, the others wait for it to complete
+        assertEquals(1, transport.writes.size());
+        assertFalse(first.isDone());
+
+        transport.completeNext();
+        assertTrue(first.isDone());
+        assertEquals(2, transport.writes.size());
+        assertEquals(3, transport.writes.get(1).buffers.length);
+        assertTrue(others.stream().noneMatch(CompletableFuture::isDone));
+
+        transport.completeNext();
+        assertTrue(others.stream().allMatch(CompletableFuture::isDone));
+    }
+
+    @Test void sendingAll() {
+        val transport = new RecordingTransport(true);
+        val queue = queue(transport, CoalescingPolicy.none());
+
+        val large = new SendFrame("/queue/a");
+        large.setBody(ByteBuffer.allocate(4096));
+
+        assertTrue(queue.sendAll(List.of(new AckFrame("a-1"), large, new AckFrame("a-2"))).isDone());
+
+        // even without coalescing, the frames are written together
+        assertEquals(1, transport.writes.size());
+        assertEquals(5, transport.writes.get(0).buffers.length);
+    }
+
+    @Test void maxBatchBytes() {
+        val transport = new RecordingTransport(false);
+        val frameSize = ByteBuffer.wrap("ACK\nid:a-1\n\n\0".getBytes()).remaining();
+        val queue = queue(transport, CoalescingPolicy.whenIdle(frameSize * 2));
+
+        for (int i = 0; i < 6; i++) {
+            queue.send(new AckFrame("a-" + i));
+        }
+
+        transport.completeNext();
+        transport.completeNext();
+        transport.completeNext();
+
+        assertEquals(4, transport.writes.size());
+        assertEquals(1, transport.writes.get(0).buffers.length);
+        assertEquals(2, transport.writes.get(1).buffers.length);
+        assertEquals(2, transport.writes.get(2).buffers.length);
+        assertEquals(1, transport.writes.get(3).buffers.length);
+    }
+
+    @Test void delayed() throws Exception {
+        val transport = new RecordingTransport(true);
+        val queue = queue(transport, CoalescingPolicy.delayed(50_000, 64 * 1024));
+
+        val futures = List.of(queue.send(new AckFrame("a-1")), queue.send(new AckFrame("a-2")), queue.send(new AckFrame("a-3")));
+        assertTrue(transport.writes.isEmpty());
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(5, SECONDS);
+        assertEquals(1, transport.writes.size());
+        assertEquals(3, transport.writes.get(0).buffers.length);
+
+        // the timer thread hands the write off to the executor
+        assertEquals("writer", transport.writes.get(0).thread);
+    }
+
+    @Test void delayedUntilBatchFull() {
+        val transport = new RecordingTransport(true);
+        val queue = queue(transport, CoalescingPolicy.delayed(SECONDS.toMicros(30), 100));
+
+        val send = new SendFrame("/queue/a");
+        send.setBody(new byte[100]);
+
+        assertTrue(queue.send(send).isDone());
+        assertEquals(1, transport.writes.size());
+    }
+
+    @Test void largeBodiesNotCopied() {
+        val transport = new RecordingTransport(true);
+        val queue = queue(transport, CoalescingPolicy.whenIdle());
+
+        val send = new SendFrame("/queue/a");
+        send.setBody(ByteBuffer.allocateDirect(8192));
+        queue.send(send);
+
+        val buffers = transport.writes.get(0).buffers;
+        assertEquals(3, buffers.length);
+        assertTrue(buffers[1].isDirect());
+    }
+
+    @Test void failedWrite() {
+        val transport = new RecordingTransport(false);
+        val queue = queue(transport, CoalescingPolicy.whenIdle());
+
+        val first = queue.send(new AckFrame("a-1"));
+        val second = queue.send(new AckFrame("a-2"));
+
+        transport.writes.get(0).future.completeExceptionally(new IOException("closed"));
+        val thrown = assertThrows(ExecutionException.class, first::get);
+        assertEquals("closed", thrown.getCause().getMessage());
+
+        transport.writes.get(1).future.complete(null);
+        assertTrue(second.isDone());
+    }
+
+    @Test void writeThrowing() {
+        val transport = new RecordingTransport(true);
+        val queue = queue(transport, CoalescingPolicy.whenIdle());
+
+        transport.throwing = true;
+        val thrown = assertThrows(ExecutionException.class, () -> queue.send(new AckFrame("a-1")).get());
+        assertInstanceOf(IllegalStateException.class, thrown.getCause());
+
+        // the queue is still writable
+        transport.throwing = false;
+        assertTrue(queue.send(new AckFrame("a-2")).isDone());
+        assertEquals(1, transport.writes.size());
+    }
+
+    @Test void concurrentSends() throws Exception {
+        val transport = new RecordingTransport(true);
+        val queue = queue(transport, CoalescingPolicy.whenIdle());
+        val start = new CountDownLatch(1);
+        val futures = new CopyOnWriteArrayList<CompletableFuture<Void>>();
+
+        val threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1000; i++) {
+                    futures.add(queue.send(new AckFrame("a-" + i)));
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (val thread : threads) {
+            thread.join();
+        }
+
+        await().until(() -> futures.stream().allMatch(CompletableFuture::isDone));
+        assertEquals(8000, transport.writes.stream().mapToInt(write -> write.buffers.length).sum());
+    }
+
+    private OutboundQueue queue(final Transport transport, final CoalescingPolicy policy) {
+        return new OutboundQueue(transport, policy, HashedTimerWheel.shared(), executor);
+    }
+
+    private static class RecordingTransport implements Transport {
+
+        private final boolean synchronous;
+        private final List<Write> writes = new CopyOnWriteArrayList<>();
+        private int completed;
+        private volatile boolean throwing;
+
+        RecordingTransport(final boolean synchronous) {
+            this.synchronous = synchronous;
+        }
+
+        @Override public void open(final InetSocketAddress address, final Inbound inbound) {
+        }
+
+        @Override public CompletableFuture<Void> write(final ByteBuffer[] buffers) {
+            if (throwing) {
+                throw new IllegalStateException("rejected");
+            }
+            val write = new Write(buffers, synchronous ? CompletableFuture.completedFuture(null) : new CompletableFuture<>());
+            writes.add(write);
+            return write.future;
+        }
+
+        @Override public void resumeReading() {
+        }
+
+        void completeNext() {
+            writes.get(completed++).future.complete(null);
+        }
+
+        @Override public void close() {
+        }
+    }
+
+    private static class Write {
+
+        private final ByteBuffer[] buffers;
+        private final CompletableFuture<Void> future;
+        private final String thread = Thread.currentThread().getName();
+
+        Write(final ByteBuffer[] buffers, final CompletableFuture<Void> future) {
+            this.buffers = buffers;
+            this.future = future;
+        }
+    }
+}
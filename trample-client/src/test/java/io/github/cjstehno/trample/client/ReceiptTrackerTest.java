@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import io.github.cjstehno.trample.stomp.ReceiptFrame;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReceiptTrackerTest {
+
+    private final ReceiptTracker tracker = new ReceiptTracker(new HashedTimerWheel("test-timer", 5, MILLISECONDS, 8));
+
+    @Test void receiving() throws Exception {
+        val first = tracker.nextId();
+        val second = tracker.nextId();
+        assertNotEquals(first, second);
+
+        val firstReceipt = tracker.track(first, 5, SECONDS);
+        val secondReceipt = tracker.track(second, 0, SECONDS);
+        assertEquals(2, tracker.pendingCount());
+
+        // out of order
+        assertTrue(tracker.received(new ReceiptFrame(second)));
+        assertTrue(tracker.received(new ReceiptFrame(first)));
+        assertFalse(tracker.received(new ReceiptFrame("unknown")));
+
+        assertEquals(first, firstReceipt.get(1, SECONDS).getReceiptId());
+        assertEquals(second, secondReceipt.get(1, SECONDS).getReceiptId());
+        assertEquals(0, tracker.pendingCount());
+    }
+
+    @Test void duplicate() {
+        tracker.track("r-1", 0, SECONDS);
+        assertThrows(IllegalArgumentException.class, () -> tracker.track("r-1", 0, SECONDS));
+    }
+
+    @Test void timingOut() {
+        val receipt = tracker.track(tracker.nextId(), 20, MILLISECONDS);
+
+        val thrown = assertThrows(ExecutionException.class, () -> receipt.get(5, SECONDS));
+        assertInstanceOf(TimeoutException.class, thrown.getCause());
+        assertEquals(0, tracker.pendingCount());
+    }
+
+    @Test void failing() {
+        val first = tracker.track(tracker.nextId(), 5, SECONDS);
+        val second = tracker.track(tracker.nextId(), 5, SECONDS);
+
+        val failure = new IOException("closed");
+        tracker.failAll(failure);
+
+        assertSame(failure, assertThrows(ExecutionException.class, () -> first.get(1, SECONDS)).getCause());
+        assertSame(failure, assertThrows(ExecutionException.class, () -> second.get(1, SECONDS)).getCause());
+        assertEquals(0, tracker.pendingCount());
+    }
+}
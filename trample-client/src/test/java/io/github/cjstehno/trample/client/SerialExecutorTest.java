@@ -0,0 +1,141 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerialExecutorTest {
+
+    @Test void orderedAndSequential() throws InterruptedException {
+        val pool = Executors.newFixedThreadPool(4);
+        val executor = new SerialExecutor(pool);
+
+        val results = new ArrayList<Integer>();
+        val running = new AtomicInteger();
+        val overlaps = new AtomicInteger();
+        val done = new CountDownLatch(1000);
+
+        for (int i = 0; i < 1000; i++) {
+            val value = i;
+            executor.execute(() -> {
+                if (running.incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                results.add(value);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, SECONDS));
+        assertEquals(0, overlaps.get());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, results.get(i));
+        }
+
+        pool.shutdown();
+    }
+
+    @Test void failingTask() throws InterruptedException {
+        val pool = Executors.newSingleThreadExecutor();
+        val executor = new SerialExecutor(pool);
+        val done = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            throw new IllegalStateException("failed");
+        });
+        executor.execute(done::countDown);
+
+        assertTrue(done.await(5, SECONDS));
+        pool.shutdown();
+    }
+
+    @Test void taskThrowingError() throws InterruptedException {
+        val pool = Executors.newSingleThreadExecutor();
+        val executor = new SerialExecutor(pool);
+        val done = new CountDownLatch(1);
+
+        executor.execute(() -> {
+            throw new AssertionError("failed");
+        });
+        executor.execute(done::countDown);
+
+        assertTrue(done.await(5, SECONDS));
+        pool.shutdown();
+    }
+
+    @Test void boundedOverflow() throws InterruptedException {
+        val pool = Executors.newSingleThreadExecutor();
+        val release = new CountDownLatch(1);
+        val ran = new AtomicInteger();
+
+        val dropping = new SerialExecutor(pool, 2, OverflowPolicy.DROP);
+        dropping.execute(() -> await(release));
+        assertTrue(dropping.offer(ran::incrementAndGet));
+        assertFalse(dropping.offer(ran::incrementAndGet));
+
+        val failing = new SerialExecutor(pool, 1, OverflowPolicy.FAIL);
+        failing.execute(ran::incrementAndGet);
+        assertThrows(RejectedExecutionException.class, () -> failing.execute(ran::incrementAndGet));
+
+        release.countDown();
+        Thread.sleep(100);
+        assertEquals(2, ran.get());
+
+        pool.shutdown();
+    }
+
+    @Test void boundedBlocking() throws InterruptedException {
+        val pool = Executors.newSingleThreadExecutor();
+        val release = new CountDownLatch(1);
+        val executor = new SerialExecutor(pool, 1, OverflowPolicy.BLOCK);
+        val submitted = new CountDownLatch(1);
+
+        executor.execute(() -> await(release));
+
+        val submitter = new Thread(() -> {
+            executor.execute(() -> {});
+            submitted.countDown();
+        });
+        submitter.start();
+
+        assertFalse(submitted.await(200, MILLISECONDS));
+        release.countDown();
+        assertTrue(submitted.await(5, SECONDS));
+
+        pool.shutdown();
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,501 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import io.github.cjstehno.trample.stomp.AckFrame;
+import io.github.cjstehno.trample.stomp.BaseFrame;
+import io.github.cjstehno.trample.stomp.ConnectFrame;
+import io.github.cjstehno.trample.stomp.ConnectedFrame;
+import io.github.cjstehno.trample.stomp.HeartBeat;
+import io.github.cjstehno.trample.stomp.MessageFrame;
+import io.github.cjstehno.trample.stomp.NackFrame;
+import io.github.cjstehno.trample.stomp.SendFrame;
+import io.github.cjstehno.trample.stomp.SubscribeFrame;
+import io.github.cjstehno.trample.stomp.UnsubscribeFrame;
+import lombok.val;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StompClientTest {
+
+    private static EventLoopGroup group;
+    private StompServerStub server;
+
+    @BeforeAll static void beforeAll() {
+        group = EventLoopGroup.create(2);
+    }
+
+    @AfterAll static void afterAll() {
+        group.close();
+    }
+
+    @BeforeEach void beforeEach() throws IOException {
+        server = new StompServerStub();
+    }
+
+    @AfterEach void afterEach() throws IOException {
+        server.close();
+    }
+
+    @ParameterizedTest @ValueSource(booleans = {false, true})
+    void sendingAndReceiving(final boolean nio) throws Exception {
+        val client = client(nio);
+        val received = new CopyOnWriteArrayList<BaseFrame>();
+        client.on(ConnectedFrame.class, received::add);
+        client.on(MessageFrame.class, received::add);
+
+        client.connect();
+        assertInstanceOf(ConnectFrame.class, server.receive());
+
+        val body = new byte[64 * 1024];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) i;
+        }
+        val send = new SendFrame("/queue/a");
+        send.setBody(body);
+        client.send(send).get(5, SECONDS);
+
+        assertArrayEquals(body, server.receive(SendFrame.class).getBodyBytes());
+
+        server.send(new MessageFrame("/queue/a", "m-1"));
+
+        await().until(() -> received.size() == 2);
+        assertInstanceOf(ConnectedFrame.class, received.get(0));
+        assertEquals("m-1", ((MessageFrame) received.get(1)).getMessageId());
+
+        client.disconnect();
+    }
+
+    @ParameterizedTest @ValueSource(booleans = {false, true})
+    void dispatchingOnExecutor(final boolean nio) throws Exception {
+        val executor = Executors.newCachedThreadPool(runnable -> new Thread(runnable, "dispatcher"));
+        val client = client(nio).executor(executor);
+
+        val threads = new CopyOnWriteArrayList<String>();
+        val received = new CopyOnWriteArrayList<String>();
+        client.on(MessageFrame.class, frame -> {
+            threads.add(Thread.currentThread().getName());
+            received.add(((MessageFrame) frame).getMessageId());
+        });
+        client.connect();
+        server.receive();
+
+        for (int i = 0; i < 100; i++) {
+            server.send(new MessageFrame("/queue/a", "m-" + i));
+        }
+
+        await().until(() -> received.size() == 100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("m-" + i, received.get(i));
+        }
+        assertTrue(threads.stream().allMatch("dispatcher"::equals));
+
+        client.disconnect();
+        executor.shutdown();
+    }
+
+    @Test void subscriptionRouting() throws Exception {
+        val client = client(true);
+        val first = new CopyOnWriteArrayList<String>();
+        val second = new CopyOnWriteArrayList<String>();
+        val all = new CopyOnWriteArrayList<BaseFrame>();
+
+        client.on(MessageFrame.class, all::add);
+        client.connect();
+
+        val registration = client.subscribe(new SubscribeFrame("/queue/a", "sub-1"), message -> first.add(message.getMessageId()));
+        client.subscribe(new SubscribeFrame("/queue/b", "sub-2"), message -> second.add(message.getMessageId()));
+        assertEquals("sub-1", server.receive(SubscribeFrame.class).getId());
+        assertEquals("sub-2", server.receive(SubscribeFrame.class).getId());
+
+        assertThrows(IllegalArgumentException.class, () -> client.subscribe(new SubscribeFrame("/queue/c", "sub-1"), message -> {}));
+
+        server.send(message("sub-1", "m-1"));
+        server.send(message("sub-2", "m-2"));
+        server.send(message("sub-3", "m-3"));
+        await().until(() -> all.size() == 3);
+
+        assertEquals(List.of("m-1"), first);
+        assertEquals(List.of("m-2"), second);
+
+        registration.cancel();
+        assertEquals("sub-1", server.receive(UnsubscribeFrame.class).getId());
+
+        server.send(message("sub-1", "m-4"));
+        await().until(() -> all.size() == 4);
+        assertEquals(List.of("m-1"), first);
+
+        client.disconnect();
+    }
+
+    @Test void acknowledging() throws Exception {
+        val client = client(true).ackPolicy(AckPolicy.batched(2, 1, SECONDS));
+        val received = new CopyOnWriteArrayList<MessageFrame>();
+        client.connect();
+
+        val subscribe = new SubscribeFrame("/queue/a", "sub-1");
+        subscribe.setAck(AckMode.CLIENT_INDIVIDUAL.getHeaderValue());
+        client.subscribe(subscribe, received::add);
+        assertEquals("client-individual", server.receive(SubscribeFrame.class).getAck());
+
+        for (int i = 1; i <= 3; i++) {
+            val message = message("sub-1", "m-" + i);
+            message.setAck("a-" + i);
+            server.send(message);
+        }
+        await().until(() -> received.size() == 3);
+
+        client.ack(received.get(0));
+        client.ack(received.get(1)).get(5, SECONDS);
+        assertEquals("a-1", server.receive(AckFrame.class).getId());
+        assertEquals("a-2", server.receive(AckFrame.class).getId());
+
+        client.nack(received.get(2)).get(5, SECONDS);
+        assertEquals("a-3", server.receive(NackFrame.class).getId());
+
+        assertThrows(IllegalArgumentException.class, () -> client.ack(message("sub-2", "m-4")));
+
+        client.disconnect();
+    }
+
+    @ParameterizedTest @ValueSource(booleans = {false, true})
+    void prefetching(final boolean nio) throws Exception {
+        val client = client(nio).prefetch(2);
+        val received = new CopyOnWriteArrayList<MessageFrame>();
+        client.connect();
+
+        val subscribe = new SubscribeFrame("/queue/a", "sub-1");
+        subscribe.setAck(AckMode.CLIENT.getHeaderValue());
+        client.subscribe(subscribe, received::add);
+        assertEquals(2, server.receive(SubscribeFrame.class).getPrefetchSize());
+
+        server.send(message("sub-1", "m-1"));
+        server.send(message("sub-1", "m-2"));
+        await().until(() -> received.size() == 2);
+
+        // the prefetch has been reached, so reading is paused
+        server.send(message("sub-1", "m-3"));
+        server.send(message("sub-1", "m-4"));
+        Thread.sleep(200);
+        assertEquals(2, received.size());
+
+        client.ack(received.get(1));
+        await().until(() -> received.size() == 4);
+
+        client.disconnect();
+    }
+
+    @ParameterizedTest @ValueSource(booleans = {false, true})
+    void boundedInboundBuffer(final boolean nio) throws Exception {
+        val executor = Executors.newCachedThreadPool();
+        val client = client(nio).executor(executor).inboundBuffer(1);
+        val release = new CountDownLatch(1);
+        val received = new CopyOnWriteArrayList<String>();
+        client.connect();
+
+        client.subscribe(new SubscribeFrame("/queue/a", "sub-1"), message -> {
+            received.add(message.getMessageId());
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.receive(SubscribeFrame.class);
+
+        server.send(message("sub-1", "m-1"));
+        await().until(() -> received.size() == 1);
+
+        // the handler is busy with the buffered message, so reading is paused
+        server.send(message("sub-1", "m-2"));
+        Thread.sleep(200);
+        assertEquals(1, received.size());
+
+        release.countDown();
+        await().until(() -> received.size() == 2);
+
+        client.disconnect();
+        executor.shutdown();
+    }
+
+    @Test void perSubscriptionDispatch() throws Exception {
+        val executor = Executors.newCachedThreadPool();
+        val client = client(true).dispatch(DispatchPolicy.perSubscription(executor));
+        client.connect();
+
+        val blocked = new CountDownLatch(1);
+        val slow = new CopyOnWriteArrayList<String>();
+        val fast = new CopyOnWriteArrayList<String>();
+
+        client.subscribe(new SubscribeFrame("/queue/a", "sub-1"), message -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            slow.add(message.getMessageId());
+        });
+        client.subscribe(new SubscribeFrame("/queue/b", "sub-2"), message -> fast.add(message.getMessageId()));
+
+        for (int i = 0; i < 10; i++) {
+            server.send(message("sub-1", "a-" + i));
+            server.send(message("sub-2", "b-" + i));
+        }
+
+        // the blocked subscription does not hold back the other one
+        await().until(() -> fast.size() == 10);
+        assertTrue(slow.isEmpty());
+
+        blocked.countDown();
+        await().until(() -> slow.size() == 10);
+        for (int i = 0; i < 10; i++) {
+            assertEquals("a-" + i, slow.get(i));
+            assertEquals("b-" + i, fast.get(i));
+        }
+
+        client.disconnect();
+        executor.shutdown();
+    }
+
+    @ParameterizedTest @ValueSource(booleans = {false, true})
+    void droppingOnOverflow(final boolean nio) throws Exception {
+        val executor = Executors.newCachedThreadPool();
+        val client = client(nio).prefetch(3)
+            .dispatch(DispatchPolicy.perSubscription(executor).bounded(1, OverflowPolicy.DROP));
+        val release = new CountDownLatch(1);
+        val started = new CountDownLatch(1);
+        val handled = new CountDownLatch(1);
+        val received = new CopyOnWriteArrayList<String>();
+        client.connect();
+
+        val subscribe = new SubscribeFrame("/queue/a", "sub-1");
+        subscribe.setAck(AckMode.CLIENT_INDIVIDUAL.getHeaderValue());
+        client.subscribe(subscribe, message -> {
+            received.add(message.getMessageId());
+            if (received.size() == 1) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                handled.countDown();
+            }
+        });
+        server.receive(SubscribeFrame.class);
+
+        server.send(message("sub-1", "m-1"));
+        assertTrue(started.await(5, SECONDS));
+
+        // the queue is full, so these are discarded - without holding on to their share of the prefetch
+        server.send(message("sub-1", "m-2"));
+        server.send(message("sub-1", "m-3"));
+        Thread.sleep(200);
+
+        release.countDown();
+        assertTrue(handled.await(5, SECONDS));
+
+        // only the unacknowledged m-1 counts against the prefetch, so reading goes on
+        server.send(message("sub-1", "m-4"));
+        await().until(() -> received.size() == 2);
+        assertEquals(List.of("m-1", "m-4"), received);
+
+        client.disconnect();
+        executor.shutdown();
+    }
+
+    @ParameterizedTest @ValueSource(booleans = {false, true})
+    void sendingHeartBeats(final boolean nio) throws Exception {
+        server.responder((stub, frame) -> {
+            if (frame instanceof ConnectFrame connect) {
+                assertEquals(new HeartBeat(50, 0), connect.getHeartBeat());
+
+                val connected = new ConnectedFrame("1.2");
+                connected.setHeartBeat(new HeartBeat(0, 100));
+                stub.send(connected);
+            }
+        });
+
+        val client = client(nio).heartBeat(new HeartBeat(50, 0));
+        client.connect();
+        server.receive();
+
+        // nothing is sent by the client, other than the heart-beats
+        val received = server.bytesReceived();
+        await().until(() -> server.bytesReceived() >= received + 3);
+        assertTrue(server.received().isEmpty());
+        assertEquals(1, server.connections());
+
+        client.disconnect();
+    }
+
+    @ParameterizedTest @ValueSource(booleans = {false, true})
+    void deadServer(final boolean nio) throws Exception {
+        server.responder((stub, frame) -> {
+            if (frame instanceof ConnectFrame) {
+                // promises heart-beats, but never sends them
+                val connected = new ConnectedFrame("1.2");
+                connected.setHeartBeat(new HeartBeat(50, 0));
+                stub.send(connected);
+            }
+        });
+
+        val client = client(nio).heartBeat(new HeartBeat(0, 50));
+        val closedBy = new CompletableFuture<Throwable>();
+        client.onClose(closedBy::complete);
+        client.connect();
+        server.receive();
+
+        // the receipt will never come, as the server is dead
+        val receipt = client.sendWithReceipt(new SendFrame("/queue/a"));
+
+        await().until(() -> server.connections() == 0);
+        assertInstanceOf(TimeoutException.class, closedBy.get(5, SECONDS));
+
+        val thrown = assertThrows(ExecutionException.class, () -> receipt.get(5, SECONDS));
+        assertInstanceOf(TimeoutException.class, thrown.getCause());
+        client.disconnect();
+    }
+
+    @Test void malformedHeartBeat() throws Exception {
+        server.responder((stub, frame) -> {
+            if (frame instanceof ConnectFrame) {
+                val connected = new ConnectedFrame("1.2");
+                connected.setHeader("heart-beat", "sometimes");
+                stub.send(connected);
+            }
+        });
+
+        val client = client(true).heartBeat(new HeartBeat(50, 50));
+        val connected = new CountDownLatch(1);
+        client.on(ConnectedFrame.class, frame -> connected.countDown());
+        client.connect();
+
+        // taken as no heart-beating, so the connection stays open
+        assertTrue(connected.await(5, SECONDS));
+        Thread.sleep(200);
+        assertEquals(1, server.connections());
+
+        client.disconnect();
+    }
+
+    @Test void sharedEventLoops() throws Exception {
+        val clients = new ArrayList<StompClient>();
+        val received = new CopyOnWriteArrayList<BaseFrame>();
+
+        for (int i = 0; i < 20; i++) {
+            val client = client(true);
+            client.on(MessageFrame.class, received::add);
+            client.connect();
+            clients.add(client);
+        }
+        await().until(() -> server.connections() == 20);
+
+        server.send(new MessageFrame("/topic/a", "m-1"));
+        await().until(() -> received.size() == 20);
+
+        for (val client : clients) {
+            client.disconnect();
+        }
+    }
+
+    @Test void slowHandlerOnSharedEventLoop() throws Exception {
+        val loop = EventLoopGroup.create(1);
+        val executor = Executors.newCachedThreadPool();
+        val release = new CountDownLatch(1);
+        val started = new CountDownLatch(1);
+
+        // a full dispatch queue pauses the reading of its own connection, rather than blocking the event loop
+        val slow = new StompClient("127.0.0.1", server.port()).eventLoopGroup(loop)
+            .dispatch(DispatchPolicy.serial(executor).bounded(1, OverflowPolicy.BLOCK));
+        slow.on(MessageFrame.class, frame -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        slow.connect();
+
+        val received = new CopyOnWriteArrayList<BaseFrame>();
+        val other = new StompClient("127.0.0.1", server.port()).eventLoopGroup(loop);
+        other.on(MessageFrame.class, received::add);
+        other.connect();
+        await().until(() -> server.connections() == 2);
+
+        server.send(new MessageFrame("/topic/a", "m-1"));
+        assertTrue(started.await(5, SECONDS));
+
+        // the slow client's queue is now full, which would block the loop on the next message
+        server.send(new MessageFrame("/topic/a", "m-2"));
+        Thread.sleep(200);
+        server.send(new MessageFrame("/topic/a", "m-3"));
+        await().until(() -> received.size() == 3);
+
+        release.countDown();
+        slow.disconnect();
+        other.disconnect();
+        executor.shutdown();
+        loop.close();
+    }
+
+    @Test void sendingAfterServerClosed() throws Exception {
+        val client = client(true);
+        client.connect();
+        server.receive();
+
+        server.disconnectAll();
+
+        // the closed connection is only noticed when read (or written), so keep sending until it fails
+        await().untilAsserted(() -> assertThrows(
+            ExecutionException.class,
+            () -> client.send(new SendFrame("/queue/a")).get(5, SECONDS)
+        ));
+
+        client.disconnect();
+    }
+
+    private static MessageFrame message(final String subscription, final String id) {
+        val message = new MessageFrame("/queue/a", id);
+        message.setSubscription(subscription);
+        return message;
+    }
+
+    private StompClient client(final boolean nio) throws IOException {
+        val client = new StompClient("127.0.0.1", server.port());
+        return nio ? client.eventLoopGroup(group) : client;
+    }
+}
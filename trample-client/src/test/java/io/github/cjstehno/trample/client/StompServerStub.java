@@ -0,0 +1,214 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import io.github.cjstehno.trample.parser.StompParser;
+import io.github.cjstehno.trample.stomp.BaseFrame;
+import io.github.cjstehno.trample.stomp.ConnectFrame;
+import io.github.cjstehno.trample.stomp.ConnectedFrame;
+import io.github.cjstehno.trample.stomp.FrameEncoder;
+import io.github.cjstehno.trample.stomp.ReceiptFrame;
+import io.github.cjstehno.trample.stomp.StompHeaders;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * A minimal STOMP "server" for testing the clients. It records the frames received from every connection, answers
+ * CONNECT frames with a CONNECTED frame and the frames requesting a receipt with a RECEIPT frame, and sends whatever
+ * frames the test asks it to send.
+ */
+@Slf4j
+class StompServerStub implements AutoCloseable {
+
+    private final ServerSocketChannel server;
+    private final List<SocketChannel> connections = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<BaseFrame> received = new LinkedBlockingQueue<>();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private volatile BiConsumer<StompServerStub, BaseFrame> responder = StompServerStub::connected;
+
+    StompServerStub() throws IOException {
+        server = ServerSocketChannel.open().bind(new InetSocketAddress("127.0.0.1", 0));
+
+        val acceptor = new Thread(this::accept, "stomp-stub");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int port() throws IOException {
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    int connections() {
+        return connections.size();
+    }
+
+    /**
+     * The total number of bytes received (including heart-beats).
+     */
+    long bytesReceived() {
+        return bytesReceived.get();
+    }
+
+    /**
+     * Replaces the default responder (which answers CONNECT frames and receipt requests) - the responder is called with each frame
+     * received, on the reading thread of the connection.
+     */
+    StompServerStub responder(final BiConsumer<StompServerStub, BaseFrame> function) {
+        responder = function;
+        return this;
+    }
+
+    /**
+     * Waits for the next frame received by the server.
+     */
+    BaseFrame receive() throws InterruptedException {
+        val frame = received.poll(5, TimeUnit.SECONDS);
+        if (frame == null) {
+            throw new IllegalStateException("No frame received.");
+        }
+        return frame;
+    }
+
+    /**
+     * Waits for the next frame received by the server, skipping the CONNECT frames.
+     */
+    @SuppressWarnings("unchecked")
+    <F extends BaseFrame> F receive(final Class<F> type) throws InterruptedException {
+        while (true) {
+            val frame = receive();
+            if (type.isInstance(frame)) {
+                return (F) frame;
+            } else if (!(frame instanceof ConnectFrame)) {
+                throw new IllegalStateException("Expected " + type.getSimpleName() + " but received: " + frame);
+            }
+        }
+    }
+
+    BlockingQueue<BaseFrame> received() {
+        return received;
+    }
+
+    /**
+     * Sends the frame on every open connection.
+     */
+    void send(final BaseFrame frame) {
+        connections.forEach(connection -> send(connection, frame));
+    }
+
+    /**
+     * Sends raw bytes on every open connection.
+     */
+    void sendRaw(final byte[] bytes) {
+        connections.forEach(connection -> {
+            synchronized (connection) {
+                try {
+                    connection.write(ByteBuffer.wrap(bytes));
+                } catch (IOException e) {
+                    log.warn("Unable to send: {}", e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Closes the open connections, but keeps accepting new ones.
+     */
+    void disconnectAll() throws IOException {
+        for (val connection : connections) {
+            connection.close();
+        }
+    }
+
+    @Override public void close() throws IOException {
+        server.close();
+        disconnectAll();
+    }
+
+    private static void connected(final StompServerStub stub, final BaseFrame frame) {
+        if (frame instanceof ConnectFrame) {
+            stub.send(new ConnectedFrame("1.2"));
+        } else {
+            receipt(stub, frame);
+        }
+    }
+
+    /**
+     * Answers a frame requesting a receipt with its RECEIPT frame.
+     */
+    static void receipt(final StompServerStub stub, final BaseFrame frame) {
+        val receipt = frame.getHeader(StompHeaders.RECEIPT);
+        if (receipt != null) {
+            stub.send(new ReceiptFrame(receipt));
+        }
+    }
+
+    private void send(final SocketChannel connection, final BaseFrame frame) {
+        synchronized (connection) {
+            try {
+                FrameEncoder.write(frame, connection);
+            } catch (IOException e) {
+                log.debug("Unable to send {}: {}", frame, e.getMessage());
+            }
+        }
+    }
+
+    private void accept() {
+        try {
+            while (server.isOpen()) {
+                val connection = server.accept();
+                connections.add(connection);
+
+                val reader = new Thread(() -> read(connection), "stomp-stub-connection");
+                reader.setDaemon(true);
+                reader.start();
+            }
+        } catch (IOException e) {
+            // closed
+        }
+    }
+
+    private void read(final SocketChannel connection) {
+        val decoder = StompParser.forClientFrames().decoder();
+        val buffer = ByteBuffer.allocate(4096);
+        try {
+            int count;
+            while ((count = connection.read(buffer.clear())) >= 0) {
+                bytesReceived.addAndGet(count);
+                decoder.decode(buffer.flip(), frame -> {
+                    received.add(frame);
+                    responder.accept(this, frame);
+                });
+            }
+        } catch (IOException e) {
+            // closed
+        } finally {
+            connections.remove(connection);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import io.github.cjstehno.trample.stomp.ConnectFrame;
+import io.github.cjstehno.trample.stomp.DisconnectFrame;
+import io.github.cjstehno.trample.stomp.ErrorFrame;
+import io.github.cjstehno.trample.stomp.MessageFrame;
+import io.github.cjstehno.trample.stomp.ReceiptFrame;
+import io.github.cjstehno.trample.stomp.SendFrame;
+import io.github.cjstehno.trample.stomp.SubscribeFrame;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static io.github.cjstehno.trample.stomp.StompHeaders.RECEIPT;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrampleClientTest {
+
+    private StompServerStub server;
+    private TrampleClient client;
+
+    @BeforeEach void beforeEach() throws IOException {
+        server = new StompServerStub();
+        client = new TrampleClient(new StompClient("127.0.0.1", server.port()).eventLoopGroup(EventLoopGroup.shared()));
+    }
+
+    @AfterEach void afterEach() throws IOException {
+        client.getClient().disconnect();
+        server.close();
+    }
+
+    @Test void connectingAndDisconnecting() throws Exception {
+        assertEquals("1.2", client.connect().get(5, SECONDS).getVersion());
+        assertInstanceOf(ConnectFrame.class, server.receive());
+
+        val disconnected = client.disconnect();
+        val disconnect = server.receive(DisconnectFrame.class);
+        assertNotNull(disconnect.getReceipt());
+
+        disconnected.get(5, SECONDS);
+        await().until(() -> server.connections() == 0);
+    }
+
+    @Test void connectionRefused() {
+        server.responder((stub, frame) -> {
+            val error = new ErrorFrame();
+            error.setMessage("bad credentials");
+            stub.send(error);
+        });
+
+        val thrown = assertThrows(ExecutionException.class, () -> client.connect().get(5, SECONDS));
+        assertEquals("Connection refused: bad credentials", thrown.getCause().getMessage());
+    }
+
+    @Test void disconnectWithoutReceipt() throws Exception {
+        client.connect().get(5, SECONDS);
+
+        // the server drops the connection rather than sending the receipt
+        server.responder((stub, frame) -> {
+            try {
+                stub.disconnectAll();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertThrows(ExecutionException.class, () -> client.disconnect().get(5, SECONDS));
+    }
+
+    @Test void confirmedSends() throws Exception {
+        client.connect().get(5, SECONDS);
+
+        // many receipts pending at once
+        val receipts = new ArrayList<CompletableFuture<ReceiptFrame>>();
+        for (int i = 0; i < 100; i++) {
+            val frame = new SendFrame("/queue/a");
+            frame.setBody("message-" + i);
+            receipts.add(client.sendConfirmed(frame));
+        }
+        CompletableFuture.allOf(receipts.toArray(new CompletableFuture<?>[0])).get(5, SECONDS);
+
+        for (int i = 0; i < 100; i++) {
+            val send = server.receive(SendFrame.class);
+            assertEquals(send.getHeader(RECEIPT), receipts.get(i).get().getReceiptId());
+        }
+    }
+
+    @Test void unconfirmedSend() throws Exception {
+        client.getClient().receiptTimeout(50, MILLISECONDS);
+        client.connect().get(5, SECONDS);
+
+        // the server ignores the receipt request
+        server.responder((stub, frame) -> {});
+
+        val receipt = client.sendConfirmed(new SendFrame("/queue/a"));
+
+        val thrown = assertThrows(ExecutionException.class, () -> receipt.get(5, SECONDS));
+        assertInstanceOf(TimeoutException.class, thrown.getCause());
+    }
+
+    @Test void sendingAndSubscribing() throws Exception {
+        client.connect().get(5, SECONDS);
+
+        val received = new CopyOnWriteArrayList<String>();
+        client.subscribe("/queue/a", message -> received.add(message.getBody()));
+        val subscribe = server.receive(SubscribeFrame.class);
+
+        // many sends in flight at once
+        val sends = new ArrayList<CompletableFuture<Void>>();
+        for (int i = 0; i < 1000; i++) {
+            sends.add(client.send("/queue/a", "message-" + i));
+        }
+        sends.add(client.send("/queue/b", ByteBuffer.wrap("binary".getBytes(UTF_8))));
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0])).get(5, SECONDS);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("message-" + i, server.receive(SendFrame.class).getBody());
+        }
+        assertEquals("/queue/b", server.receive(SendFrame.class).getDestination());
+
+        val message = new MessageFrame("/queue/a", "m-1");
+        message.setSubscription(subscribe.getId());
+        message.setBody("hello");
+        server.send(message);
+
+        await().until(() -> received.equals(List.of("hello")));
+    }
+}
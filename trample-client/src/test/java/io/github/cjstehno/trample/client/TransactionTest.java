@@ -0,0 +1,195 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import io.github.cjstehno.trample.stomp.AckFrame;
+import io.github.cjstehno.trample.stomp.BeginFrame;
+import io.github.cjstehno.trample.stomp.CommitFrame;
+import io.github.cjstehno.trample.stomp.ConnectFrame;
+import io.github.cjstehno.trample.stomp.MessageFrame;
+import io.github.cjstehno.trample.stomp.SendFrame;
+import io.github.cjstehno.trample.stomp.SubscribeFrame;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static io.github.cjstehno.trample.stomp.StompHeaders.RECEIPT;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionTest {
+
+    private StompServerStub server;
+    private StompClient client;
+
+    @BeforeEach void beforeEach() throws IOException {
+        server = new StompServerStub();
+        client = new StompClient("127.0.0.1", server.port()).eventLoopGroup(EventLoopGroup.shared());
+        client.connect();
+    }
+
+    @AfterEach void afterEach() throws IOException {
+        client.disconnect();
+        server.close();
+    }
+
+    @Test void committing() throws Exception {
+        val transaction = client.begin();
+        for (int i = 0; i < 100; i++) {
+            transaction.send("/queue/a", "message-" + i);
+        }
+
+        // nothing is written until committed
+        Thread.sleep(100);
+        assertTrue(server.received().stream().allMatch(frame -> frame instanceof ConnectFrame));
+
+        val receipt = transaction.commit();
+
+        assertEquals(transaction.getId(), server.receive(BeginFrame.class).getTransaction());
+        for (int i = 0; i < 100; i++) {
+            val send = server.receive(SendFrame.class);
+            assertEquals("message-" + i, send.getBody());
+            assertEquals(transaction.getId(), send.getTransaction());
+        }
+        val commit = server.receive(CommitFrame.class);
+        assertEquals(transaction.getId(), commit.getTransaction());
+
+        assertEquals(commit.getHeader(RECEIPT), receipt.get(5, SECONDS).getReceiptId());
+        assertThrows(IllegalStateException.class, () -> transaction.send("/queue/a", "late"));
+    }
+
+    @Test void aborting() throws Exception {
+        val transaction = client.begin();
+        transaction.send("/queue/a", "message");
+        transaction.abort();
+
+        assertThrows(IllegalStateException.class, transaction::commit);
+
+        // the next transaction is the first thing written
+        val next = client.begin();
+        assertNotEquals(transaction.getId(), next.getId());
+        next.commit().get(5, SECONDS);
+        assertEquals(next.getId(), server.receive(BeginFrame.class).getTransaction());
+    }
+
+    @Test void acknowledging() throws Exception {
+        val message = receive();
+
+        val transaction = client.begin();
+        transaction.ack(message).send("/queue/b", "reply");
+        transaction.commit().get(5, SECONDS);
+
+        server.receive(BeginFrame.class);
+        val ack = server.receive(AckFrame.class);
+        assertEquals("a-1", ack.getId());
+        assertEquals(transaction.getId(), ack.getTransaction());
+        assertEquals(transaction.getId(), server.receive(SendFrame.class).getTransaction());
+    }
+
+    @Test void acknowledgingOnce() throws Exception {
+        val messages = receive(3);
+
+        val transaction = client.begin();
+        for (val message : messages) {
+            transaction.ack(message).ack(message);
+        }
+        transaction.commit().get(5, SECONDS);
+
+        server.receive(BeginFrame.class);
+        for (val message : messages) {
+            assertEquals(message.getAck(), server.receive(AckFrame.class).getId());
+        }
+        server.receive(CommitFrame.class);
+    }
+
+    @Test void abortingAcknowledgement() throws Exception {
+        val message = receive();
+
+        val transaction = client.begin();
+        transaction.ack(message).ack(message);
+        transaction.abort();
+
+        // the message is still outstanding
+        client.ack(message).get(5, SECONDS);
+        val ack = server.receive(AckFrame.class);
+        assertEquals("a-1", ack.getId());
+        assertNull(ack.getTransaction());
+    }
+
+    @Test void failedAcknowledgement() throws Exception {
+        val message = receive();
+        client.receiptTimeout(50, MILLISECONDS);
+        server.responder((stub, frame) -> {});
+
+        val transaction = client.begin();
+        val receipt = transaction.ack(message).commit();
+        assertThrows(ExecutionException.class, () -> receipt.get(5, SECONDS));
+        server.receive(BeginFrame.class);
+        assertEquals(transaction.getId(), server.receive(AckFrame.class).getTransaction());
+
+        // the message is still outstanding
+        client.ack(message).get(5, SECONDS);
+        server.receive(CommitFrame.class);
+        assertNull(server.receive(AckFrame.class).getTransaction());
+    }
+
+    @Test void foreignFrame() {
+        val frame = new SendFrame("/queue/a");
+        frame.setTransaction("other");
+
+        assertThrows(IllegalArgumentException.class, () -> client.begin().send(frame));
+    }
+
+    @Test void unconfirmedCommit() {
+        client.receiptTimeout(50, MILLISECONDS);
+        server.responder((stub, frame) -> {});
+
+        val receipt = client.begin().send("/queue/a", "message").commit();
+        val thrown = assertThrows(ExecutionException.class, () -> receipt.get(5, SECONDS));
+        assertInstanceOf(TimeoutException.class, thrown.getCause());
+    }
+
+    private MessageFrame receive() throws Exception {
+        return receive(1).get(0);
+    }
+
+    private List<MessageFrame> receive(final int count) throws Exception {
+        val received = new CopyOnWriteArrayList<MessageFrame>();
+
+        val subscribe = new SubscribeFrame("/queue/a", "sub-1");
+        subscribe.setAck(AckMode.CLIENT_INDIVIDUAL.getHeaderValue());
+        client.subscribe(subscribe, received::add);
+        server.receive(SubscribeFrame.class);
+
+        for (int i = 1; i <= count; i++) {
+            val message = new MessageFrame("/queue/a", "m-" + i);
+            message.setSubscription("sub-1");
+            message.setAck("a-" + i);
+            server.send(message);
+        }
+        await().until(() -> received.size() == count);
+        return received;
+    }
+}
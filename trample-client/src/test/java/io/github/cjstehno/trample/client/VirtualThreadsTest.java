@@ -0,0 +1,41 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.client;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadsTest {
+
+    @Test void availability() throws Exception {
+        if (Runtime.version().feature() >= 21) {
+            assertTrue(VirtualThreads.available());
+
+            val executor = VirtualThreads.newExecutor();
+            assertTrue(CompletableFuture.supplyAsync(() -> Thread.currentThread().toString(), executor).get(5, SECONDS).contains("Virtual"));
+            executor.shutdown();
+
+        } else {
+            assertFalse(VirtualThreads.available());
+            assertThrows(UnsupportedOperationException.class, VirtualThreads::newExecutor);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.stomp;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the compact <code>HeaderMap</code> frame header storage with the <code>LinkedHashMap</code> it replaced, for
+ * the typical MESSAGE frame header set. Run with the GC profiler to see the per-frame allocation
+ * (<code>gc.alloc.rate.norm</code>):
+ *
+ * <pre>./gradlew :trample-parser:jmh -Pjmh.includes=HeaderStorageBenchmark -Pjmh.profilers=gc</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1) @Measurement(iterations = 5, time = 1) @Fork(1)
+public class HeaderStorageBenchmark {
+
+    private static final String[] NAMES = {
+        StompHeaders.DESTINATION, MessageFrame.MESSAGE_ID_HEADER, "subscription", StompHeaders.CONTENT_TYPE,
+        StompHeaders.CONTENT_LENGTH, MessageFrame.ACK_HEADER
+    };
+    private static final String[] VALUES = {"/queue/orders", "msg-1234-5678", "sub-0", "text/plain", "128", "ack-77"};
+
+    private Map<String, String> linkedHashMap;
+    private HeaderMap headerMap;
+
+    @Setup public void setup() {
+        linkedHashMap = populateLinkedHashMap();
+        headerMap = populateHeaderMap();
+    }
+
+    @Benchmark public Map<String, String> populateLinkedHashMap() {
+        final Map<String, String> headers = new LinkedHashMap<>();
+        for (int i = 0; i < NAMES.length; i++) {
+            if (!headers.containsKey(NAMES[i])) {
+                headers.put(NAMES[i], VALUES[i]);
+            }
+        }
+        return headers;
+    }
+
+    @Benchmark public HeaderMap populateHeaderMap() {
+        final HeaderMap headers = new HeaderMap();
+        for (int i = 0; i < NAMES.length; i++) {
+            headers.add(NAMES[i], VALUES[i]);
+        }
+        return headers;
+    }
+
+    @Benchmark public void lookupLinkedHashMap(final Blackhole hole) {
+        hole.consume(linkedHashMap.get(StompHeaders.DESTINATION));
+        hole.consume(linkedHashMap.get("subscription"));
+        hole.consume(linkedHashMap.get(MessageFrame.ACK_HEADER));
+    }
+
+    @Benchmark public void lookupHeaderMap(final Blackhole hole) {
+        hole.consume(headerMap.get(StompHeaders.DESTINATION));
+        hole.consume(headerMap.get("subscription"));
+        hole.consume(headerMap.get(MessageFrame.ACK_HEADER));
+    }
+
+    @Benchmark public void iterateLinkedHashMap(final Blackhole hole) {
+        for (final Map.Entry<String, String> header : linkedHashMap.entrySet()) {
+            hole.consume(header.getKey());
+            hole.consume(header.getValue());
+        }
+    }
+
+    @Benchmark public void iterateHeaderMap(final Blackhole hole) {
+        for (int i = 0; i < headerMap.size(); i++) {
+            hole.consume(headerMap.nameAt(i));
+            hole.consume(headerMap.valueAt(i));
+        }
+    }
+}
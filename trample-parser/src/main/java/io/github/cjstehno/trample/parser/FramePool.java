@@ -0,0 +1,182 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.parser;
+
+import io.github.cjstehno.trample.stomp.BaseFrame;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of reusable frame instances (per frame command), used to avoid allocating a new frame for every frame
+ * received. A pool is enabled on a parser with <code>StompParser.pooled(FramePool)</code>.
+ *
+ * The contract for pooled frames is that the consumer of a frame MUST call <code>release(frame)</code> once it is done
+ * with it, after which the frame (and any body buffer retrieved from it) must no longer be used. Frames which are not
+ * released are simply garbage collected, but they defeat the purpose of the pool - enable leak detection while
+ * debugging to find them.
+ *
+ * The pool is thread-safe, so frames may be released by a different thread from the one which acquired them.
+ */
+@Slf4j
+public final class FramePool {
+
+    private final Map<String, ArrayBlockingQueue<BaseFrame>> frames = new HashMap<>();
+    private final ReferenceQueue<BaseFrame> collected = new ReferenceQueue<>();
+    private final Map<TrackedFrame, Throwable> tracked = new ConcurrentHashMap<>();
+    private final AtomicLong leaks = new AtomicLong();
+    private volatile boolean leakDetection;
+
+    private FramePool(final int maxPerCommand) {
+        StompParser.FRAMES.keySet().forEach(command -> frames.put(command, new ArrayBlockingQueue<>(maxPerCommand)));
+    }
+
+    /**
+     * Creates a frame pool which will retain up to the given number of idle frames for each frame command.
+     *
+     * @param maxPerCommand the maximum number of idle frames retained for each command
+     * @return the frame pool
+     */
+    public static FramePool create(final int maxPerCommand) {
+        if (maxPerCommand < 1) {
+            throw new IllegalArgumentException("The pool size must be at least one.");
+        }
+        return new FramePool(maxPerCommand);
+    }
+
+    /**
+     * Enables (or disables) leak detection. When enabled, the pool records where each frame was acquired and reports
+     * (logs) every frame which is garbage collected without having been released, as well as frames released twice.
+     * This has a significant cost, so it is only intended for debugging.
+     *
+     * @param enabled whether leak detection is enabled
+     * @return a reference to this pool
+     */
+    public FramePool leakDetection(final boolean enabled) {
+        leakDetection = enabled;
+        return this;
+    }
+
+    /**
+     * Acquires a frame for the command from the pool, creating one when there is no idle instance available. The
+     * frame will be empty.
+     *
+     * @param command the frame command
+     * @return the frame instance
+     */
+    public BaseFrame acquire(final String command) {
+        val idle = frames.get(command);
+        if (idle == null) {
+            throw new IllegalArgumentException("Unexpected frame command: " + command);
+        }
+
+        var frame = idle.poll();
+        if (frame == null) {
+            frame = StompParser.FRAMES.get(command).get();
+        }
+
+        if (leakDetection) {
+            detectLeaks();
+            tracked.put(new TrackedFrame(frame, collected), new Throwable("Frame (" + command + ") acquired here"));
+        }
+
+        return frame;
+    }
+
+    /**
+     * Releases the frame back to the pool, clearing its content. The frame must not be used after it is released.
+     *
+     * @param frame the frame being released
+     */
+    public void release(final BaseFrame frame) {
+        if (leakDetection && tracked.remove(new TrackedFrame(frame, null)) == null) {
+            throw new IllegalStateException("Frame released more than once (or not acquired from this pool): " + frame);
+        }
+
+        frame.clear();
+
+        val idle = frames.get(frame.getCommand());
+        if (idle != null) {
+            // if the pool is full, the frame is just discarded
+            idle.offer(frame);
+        }
+    }
+
+    /**
+     * Retrieves the number of idle frames currently held in the pool for the command.
+     *
+     * @param command the frame command
+     * @return the number of idle frames
+     */
+    public int available(final String command) {
+        val idle = frames.get(command);
+        return idle != null ? idle.size() : 0;
+    }
+
+    /**
+     * Retrieves the number of leaked frames (collected without being released) detected so far. Leaks are only
+     * detected when leak detection is enabled.
+     *
+     * @return the number of detected leaks
+     */
+    public long leaksDetected() {
+        detectLeaks();
+        return leaks.get();
+    }
+
+    private void detectLeaks() {
+        TrackedFrame reference;
+        while ((reference = (TrackedFrame) collected.poll()) != null) {
+            val acquisition = tracked.remove(reference);
+            if (acquisition != null) {
+                leaks.incrementAndGet();
+                log.warn("Frame leak detected - a pooled frame was garbage collected without being released.", acquisition);
+            }
+        }
+    }
+
+    // weak reference to a frame with identity-based equality (frames themselves are compared by content)
+    private static final class TrackedFrame extends WeakReference<BaseFrame> {
+
+        private final int hash;
+
+        private TrackedFrame(final BaseFrame frame, final ReferenceQueue<BaseFrame> queue) {
+            super(frame, queue);
+            this.hash = System.identityHashCode(frame);
+        }
+
+        @Override public int hashCode() {
+            return hash;
+        }
+
+        @Override public boolean equals(final Object other) {
+            if (this == other) {
+                return true;
+            } else if (other instanceof TrackedFrame tracked) {
+                val frame = get();
+                return frame != null && frame == tracked.get();
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.parser;
+
+import io.github.cjstehno.trample.stomp.BaseFrame;
+import io.github.cjstehno.trample.stomp.ConnectFrame;
+import io.github.cjstehno.trample.stomp.ConnectedFrame;
+import io.github.cjstehno.trample.util.HeaderEscaping;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+import static io.github.cjstehno.trample.util.ByteBuffers.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static lombok.AccessLevel.PACKAGE;
+
+/**
+ * A flyweight, read-only view of a complete frame held in a receive buffer. The command, headers and body are read
+ * directly from the underlying bytes when they are requested - nothing is decoded or copied up front.
+ *
+ * A view is only valid until the callback it was provided to returns, since the underlying buffer (and the view
+ * instance itself) will be reused for the following frames. Use <code>materialize()</code> to copy the frame into a
+ * regular <code>BaseFrame</code> when it must outlive the buffer.
+ */
+@RequiredArgsConstructor(access = PACKAGE)
+public final class FrameView {
+
+    private final StompParser parser;
+
+    private ByteBuffer buffer;
+    private int start;
+    private int commandEnd;
+    private int headersStart;
+    private int bodyStart;
+    private int terminator;
+
+    // the end of the value found by the most recent header lookup
+    private int valueEnd;
+
+    FrameView wrap(final ByteBuffer source, final int frameStart, final int frameTerminator) throws IOException {
+        buffer = source;
+        start = frameStart;
+        terminator = frameTerminator;
+
+        val commandLineEnd = indexOf(buffer, start, terminator, (byte) '\n');
+        if (commandLineEnd < 0) {
+            throw new IOException("Incomplete frame - no EOL found after command.");
+        }
+        commandEnd = trimEnd(buffer, start, commandLineEnd);
+        headersStart = commandLineEnd + 1;
+
+        // find the blank line ending the headers
+        var lineStart = headersStart;
+        while (true) {
+            val lineEnd = indexOf(buffer, lineStart, terminator, (byte) '\n');
+            if (lineEnd < 0) {
+                throw new IOException("Incomplete frame - no blank line found after headers.");
+            }
+
+            if (lineContentEnd(lineStart, lineEnd) == lineStart) {
+                bodyStart = lineEnd + 1;
+                break;
+            }
+            lineStart = lineEnd + 1;
+        }
+
+        return this;
+    }
+
+    /**
+     * Retrieves the frame command - the well-known commands are resolved to their constant instances.
+     *
+     * @return the command
+     */
+    public String getCommand() {
+        return StompParser.command(buffer, start, commandEnd);
+    }
+
+    /**
+     * Determines whether the frame has the given command, without decoding it.
+     *
+     * @param command the command to check for
+     * @return true if the frame command matches
+     */
+    public boolean isCommand(final String command) {
+        return matches(buffer, start, commandEnd, command);
+    }
+
+    /**
+     * Determines whether the frame contains the specified header.
+     *
+     * @param name the header name
+     * @return true if the header is present
+     */
+    public boolean hasHeader(final String name) {
+        return findHeader(name) >= 0;
+    }
+
+    /**
+     * Determines whether the frame contains the specified header with the given (ASCII) value, without decoding it.
+     *
+     * @param name  the header name
+     * @param value the expected header value
+     * @return true if the header is present with the expected value
+     */
+    public boolean isHeader(final String name, final String value) {
+        val valueStart = findHeader(name);
+        return valueStart >= 0 && matches(buffer, valueStart, valueEnd, value);
+    }
+
+    /**
+     * Retrieves the raw (still escaped) value of the specified header as a read-only slice of the underlying buffer.
+     *
+     * @param name the header name
+     * @return the value bytes, or <code>null</code> if the header is not present
+     */
+    public ByteBuffer getHeaderBytes(final String name) {
+        val valueStart = findHeader(name);
+        return valueStart >= 0 ? slice(valueStart, valueEnd) : null;
+    }
+
+    /**
+     * Retrieves the raw (still escaped) value of the specified header as a character sequence backed by the underlying
+     * buffer. Each byte
+     * is presented as one character, which is exact for ASCII values (the <code>toString()</code> of the sequence
+     * performs a full UTF-8 decode).
+     *
+     * @param name the header name
+     * @return the value characters, or <code>null</code> if the header is not present
+     */
+    public CharSequence getHeaderChars(final String name) {
+        val valueStart = findHeader(name);
+        return valueStart >= 0 ? new ByteChars(buffer, valueStart, valueEnd) : null;
+    }
+
+    /**
+     * Retrieves the value of the specified header, decoded as a string (and unescaped).
+     *
+     * @param name the header name
+     * @return the value, or <code>null</code> if the header is not present
+     * @throws UncheckedIOException if the value contains an invalid escape sequence
+     */
+    public String getHeader(final String name) {
+        val valueStart = findHeader(name);
+        if (valueStart < 0) {
+            return null;
+        }
+
+        val value = decode(buffer, valueStart, valueEnd, UTF_8);
+        if (isCommand(ConnectFrame.COMMAND) || isCommand(ConnectedFrame.COMMAND)) {
+            return value;
+        }
+
+        try {
+            return HeaderEscaping.unescape(value);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    /**
+     * Retrieves the body as a read-only slice of the underlying buffer.
+     *
+     * @return the body bytes
+     */
+    public ByteBuffer getBody() {
+        return slice(bodyStart, terminator);
+    }
+
+    /**
+     * Retrieves the total number of bytes of the frame, including the NUL terminator.
+     *
+     * @return the frame size in bytes
+     */
+    public int size() {
+        return terminator + 1 - start;
+    }
+
+    /**
+     * Copies the frame content into a new frame instance, which does not depend on the underlying buffer.
+     *
+     * @return the materialized frame
+     * @throws IOException if the frame content is not well-formed
+     */
+    public BaseFrame materialize() throws IOException {
+        return parser.readFrame(buffer.duplicate().limit(terminator + 1).position(start));
+    }
+
+    @Override public String toString() {
+        return "FrameView(command=" + getCommand() + ", size=" + size() + ")";
+    }
+
+    // finds the start of the value of the first header with the name (the end is stored in valueEnd), or -1
+    private int findHeader(final String name) {
+        var lineStart = headersStart;
+        while (lineStart < bodyStart) {
+            val lineEnd = indexOf(buffer, lineStart, bodyStart, (byte) '\n');
+            val contentEnd = lineContentEnd(lineStart, lineEnd);
+
+            val separator = indexOf(buffer, lineStart, contentEnd, (byte) ':');
+            if (separator >= 0 && matches(buffer, lineStart, separator, name)) {
+                valueEnd = contentEnd;
+                return separator + 1;
+            }
+
+            lineStart = lineEnd + 1;
+        }
+        return -1;
+    }
+
+    private int lineContentEnd(final int lineStart, final int lineEnd) {
+        return lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+    }
+
+    private ByteBuffer slice(final int from, final int to) {
+        return buffer.asReadOnlyBuffer().limit(to).position(from).slice();
+    }
+
+    @RequiredArgsConstructor(access = PACKAGE)
+    private static final class ByteChars implements CharSequence {
+
+        private final ByteBuffer buffer;
+        private final int from;
+        private final int to;
+
+        @Override public int length() {
+            return to - from;
+        }
+
+        @Override public char charAt(final int index) {
+            if (index < 0 || index >= length()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return (char) (buffer.get(from + index) & 0xff);
+        }
+
+        @Override public CharSequence subSequence(final int startIndex, final int endIndex) {
+            if (startIndex < 0 || endIndex > length() || startIndex > endIndex) {
+                throw new IndexOutOfBoundsException(startIndex);
+            }
+            return new ByteChars(buffer, from + startIndex, from + endIndex);
+        }
+
+        @Override public String toString() {
+            return decode(buffer, from, to, UTF_8);
+        }
+    }
+}
@@ -16,9 +16,7 @@
 package io.github.cjstehno.trample.parser;
 
 import io.github.cjstehno.trample.stomp.BaseFrame;
-import io.github.cjstehno.trample.stomp.FrameType;
 import io.github.cjstehno.trample.stomp.FrameType.Type;
-import lombok.val;
 
 /**
  * TODO: document
@@ -28,15 +26,14 @@ enum ParserMode {
     CLIENT, SERVER, ALL;
 
     boolean allowsFrame(final BaseFrame frame) {
-        val frameClass = frame.getClass();
+        return allows(frame.getFrameType());
+    }
+
+    boolean allows(final Type frameType) {
         return switch (this) {
-            case CLIENT -> extractFrameType(frameClass) == Type.CLIENT;
-            case SERVER -> extractFrameType(frameClass) == Type.SERVER;
+            case CLIENT -> frameType == Type.CLIENT;
+            case SERVER -> frameType == Type.SERVER;
             default -> true;
         };
     }
-
-    private static Type extractFrameType(final Class<?> frameClass) {
-        return frameClass.getAnnotation(FrameType.class).value();
-    }
 }
@@ -0,0 +1,254 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.parser;
+
+import io.github.cjstehno.trample.stomp.BaseFrame;
+import lombok.val;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+import static io.github.cjstehno.trample.stomp.StompHeaders.CONTENT_LENGTH;
+import static io.github.cjstehno.trample.util.ByteBuffers.*;
+
+/**
+ * A resumable (push-style) frame decoder. Arbitrary chunks of bytes, such as the result of a non-blocking socket read,
+ * are fed to the decoder, which emits every frame completed by the chunk and retains only the bytes of the trailing
+ * partial frame until more data arrives.
+ *
+ * The frame filtering (parser mode and illegal frame handling) is the same as that of the <code>StompParser</code>
+ * which created the decoder.
+ *
+ * A frame larger than the maximum frame size of the parser fails the decoding as soon as it is detected, so that the
+ * decoder never buffers more than one maximum-sized frame.
+ *
+ * A decoder holds the state of a single stream of bytes (connection), so it is NOT thread-safe. If decoding fails
+ * with an exception, the stream should be considered corrupt and the decoder discarded (or <code>reset()</code>).
+ */
+public class StompDecoder {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final StompParser parser;
+    private final FrameView view;
+
+    // the partial frame bytes (ready for reading) carried over between chunks
+    private ByteBuffer pending = ByteBuffer.allocate(0);
+
+    // the scan state of the current (partial) frame - offsets are relative to the start of the frame
+    private int scanned;
+    private int bodyOffset = -1;
+    private int contentLength = -1;
+
+    StompDecoder(final StompParser parser) {
+        this.parser = parser;
+        this.view = new FrameView(parser);
+    }
+
+    /**
+     * Decodes the bytes remaining in the provided chunk, publishing each completed frame to the collector. When this
+     * method returns, the position of the chunk will be at its limit - the decoder keeps any incomplete frame bytes
+     * internally.
+     *
+     * @param chunk     the next chunk of bytes from the stream
+     * @param collector the consumer of the extracted frames
+     * @throws IOException if there is a problem parsing the frames
+     */
+    public void decode(final ByteBuffer chunk, final Consumer<BaseFrame> collector) throws IOException {
+        decode(chunk, (source, start, terminator) -> {
+            // the mode is checked before parsing, so an ignored frame costs no more than finding its end
+            if (parser.accepts(source, start, terminator)) {
+                val frame = source.duplicate().limit(terminator + 1).position(start);
+                parser.emit(parser.readFrame(frame), collector);
+            }
+        });
+    }
+
+    /**
+     * Decodes the bytes remaining in the provided chunk, publishing a flyweight view of each completed frame to the
+     * collector - the frame content is not parsed into a <code>BaseFrame</code>. The view (and the bytes behind it)
+     * is only valid until the collector returns.
+     *
+     * @param chunk     the next chunk of bytes from the stream
+     * @param collector the consumer of the frame views
+     * @throws IOException if there is a problem locating the frames
+     */
+    public void decodeViews(final ByteBuffer chunk, final Consumer<FrameView> collector) throws IOException {
+        decode(chunk, (source, start, terminator) -> {
+            if (parser.accepts(source, start, terminator)) {
+                collector.accept(view.wrap(source, start, terminator));
+            }
+        });
+    }
+
+    private void decode(final ByteBuffer chunk, final FrameSink sink) throws IOException {
+        if (pending.hasRemaining()) {
+            append(chunk);
+            process(pending, sink);
+            retain(pending);
+
+        } else {
+            // nothing carried over, so read the chunk directly and copy only what is left over
+            process(chunk, sink);
+            retain(chunk);
+        }
+    }
+
+    /**
+     * Retrieves the number of bytes of an incomplete frame currently held by the decoder.
+     *
+     * @return the number of pending bytes
+     */
+    public int pendingBytes() {
+        return pending.remaining();
+    }
+
+    /**
+     * Discards any pending partial frame content.
+     */
+    public void reset() {
+        pending = ByteBuffer.allocate(0);
+        resetScan();
+    }
+
+    private void process(final ByteBuffer source, final FrameSink sink) throws IOException {
+        val limit = source.limit();
+
+        while (source.hasRemaining()) {
+            // skip any EOLs (or other whitespace) between frames
+            val start = skipWhitespace(source, source.position(), limit);
+            source.position(start);
+
+            if (start == limit) {
+                break;
+            }
+
+            val terminator = findTerminator(source, start, limit);
+            if (terminator < 0) {
+                // incomplete - leave the position at the start of the frame
+                break;
+            }
+
+            sink.accept(source, start, terminator);
+
+            source.position(terminator + 1);
+            resetScan();
+        }
+    }
+
+    /*
+     * Finds the index of the NUL terminating the frame which starts at the given index, or -1 if the frame is not yet
+     * complete. The header lines are scanned first so that a content-length header can be used to find the end of the
+     * body without scanning it (it may contain NUL bytes). The scan state is kept so that the next chunk will resume
+     * where this one ended.
+     */
+    private int findTerminator(final ByteBuffer source, final int start, final int limit) throws IOException {
+        while (bodyOffset < 0) {
+            val lineStart = start + scanned;
+            val lineEnd = indexOf(source, lineStart, limit, (byte) '\n');
+            if (lineEnd < 0) {
+                return incomplete(start, limit);
+            }
+
+            val contentEnd = lineEnd > lineStart && source.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            if (contentEnd == lineStart && scanned > 0) {
+                // blank line - end of the headers
+                bodyOffset = lineEnd + 1 - start;
+
+            } else if (scanned > 0 && contentLength < 0) {
+                val separator = indexOf(source, lineStart, contentEnd, (byte) ':');
+                if (separator > 0 && matches(source, lineStart, separator, CONTENT_LENGTH)) {
+                    contentLength = parseLength(source, separator + 1, contentEnd);
+                    if (contentLength < 0) {
+                        throw new IOException("Invalid content-length header.");
+                    }
+                }
+            }
+
+            scanned = lineEnd + 1 - start;
+        }
+
+        if (contentLength >= 0) {
+            // checked before adding to the position, which may otherwise overflow
+            if ((long) bodyOffset + contentLength > parser.maxFrameSize()) {
+                throw tooLarge();
+            }
+            val terminator = (long) start + bodyOffset + contentLength;
+            return terminator < limit ? (int) terminator : -1;
+
+        } else {
+            val terminator = indexOf(source, start + scanned, limit, (byte) '\0');
+            if (terminator < 0) {
+                scanned = limit - start;
+                return incomplete(start, limit);
+            }
+            return terminator;
+        }
+    }
+
+    // the frame is not complete yet, which is only allowed while it fits within the maximum frame size
+    private int incomplete(final int start, final int limit) throws IOException {
+        if (limit - start > parser.maxFrameSize()) {
+            throw tooLarge();
+        }
+        return -1;
+    }
+
+    private IOException tooLarge() {
+        return new IOException("Frame larger than the maximum frame size (" + parser.maxFrameSize() + " bytes).");
+    }
+
+    private void resetScan() {
+        scanned = 0;
+        bodyOffset = -1;
+        contentLength = -1;
+    }
+
+    private void append(final ByteBuffer chunk) {
+        val required = pending.remaining() + chunk.remaining();
+        if (required > pending.capacity()) {
+            val expanded = ByteBuffer.allocate(Math.max(required, Math.max(INITIAL_CAPACITY, pending.capacity() * 2)));
+            expanded.put(pending);
+            pending = expanded;
+        } else {
+            pending.compact();
+        }
+
+        pending.put(chunk).flip();
+    }
+
+    private void retain(final ByteBuffer source) {
+        if (source == pending) {
+            if (!pending.hasRemaining()) {
+                pending.clear().limit(0);
+            }
+
+        } else if (source.hasRemaining()) {
+            if (pending.capacity() < source.remaining()) {
+                pending = ByteBuffer.allocate(Math.max(source.remaining(), INITIAL_CAPACITY));
+            }
+            pending.clear();
+            pending.put(source).flip();
+        }
+    }
+
+    @FunctionalInterface
+    private interface FrameSink {
+
+        void accept(ByteBuffer source, int start, int terminator) throws IOException;
+    }
+}
@@ -16,6 +16,8 @@
 package io.github.cjstehno.trample.parser;
 
 import io.github.cjstehno.trample.stomp.*;
+import io.github.cjstehno.trample.stomp.FrameType.Type;
+import io.github.cjstehno.trample.util.TokenMatcher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
@@ -24,11 +26,14 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import static io.github.cjstehno.trample.parser.ParserMode.*;
+import static io.github.cjstehno.trample.util.ByteBuffers.*;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 import static lombok.AccessLevel.PRIVATE;
 
 /**
@@ -42,7 +47,7 @@ public class StompParser {
 
     // FIXME: sensible logging
 
-    private static final Map<String, Supplier<BaseFrame>> FRAMES = new HashMap<>() {{
+    static final Map<String, Supplier<BaseFrame>> FRAMES = new HashMap<>() {{
         put(ConnectedFrame.COMMAND, ConnectedFrame::new);
         put(ConnectFrame.COMMAND, ConnectFrame::new);
         put(StompFrame.COMMAND, StompFrame::new);
@@ -59,8 +64,26 @@ public class StompParser {
         put(MessageFrame.COMMAND, MessageFrame::new);
         put(ErrorFrame.COMMAND, ErrorFrame::new);
     }};
+
+    // resolves the command bytes to the constant command instances
+    static final TokenMatcher COMMANDS = new TokenMatcher(FRAMES.keySet());
+
+    // the direction of each frame command, resolved once so that the mode check needs no frame (or reflection)
+    private static final Map<String, Type> FRAME_TYPES = new HashMap<>();
+
+    static {
+        FRAMES.forEach((command, frame) -> FRAME_TYPES.put(command, frame.get().getFrameType()));
+    }
+
+    /**
+     * The default maximum size of a frame (64MB).
+     */
+    public static final int DEFAULT_MAX_FRAME_SIZE = 64 * 1024 * 1024;
+
     private final ParserMode mode;
     private boolean ignoreIllegalFrame = false;
+    private FramePool pool;
+    private int maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
 
     /**
      * Creates a STOMP parser instance for extracting the Client frames - those frames SENT by the client. If you are
@@ -97,6 +120,35 @@ public class StompParser {
         return this;
     }
 
+    /**
+     * Enables pooled mode, in which the parsed frames are acquired from the provided pool rather than being created
+     * for each frame. The consumer of the parsed frames is then responsible for releasing each of them back to the
+     * pool once it is done with them (frames ignored by the parser are released automatically).
+     *
+     * @param framePool the frame pool (or <code>null</code> to disable pooling)
+     * @return a reference to this parser.
+     */
+    public StompParser pooled(final FramePool framePool) {
+        pool = framePool;
+        return this;
+    }
+
+    /**
+     * Limits the size of the frames read from bytes (the command, headers and body, without the NUL terminator). A
+     * larger frame - or a <code>content-length</code> header announcing one - fails the parsing, rather than being
+     * buffered until it is complete. Defaults to {@link #DEFAULT_MAX_FRAME_SIZE}.
+     *
+     * @param bytes the maximum frame size, in bytes
+     * @return a reference to this parser.
+     */
+    public StompParser maxFrameSize(final int bytes) {
+        if (bytes < 1) {
+            throw new IllegalArgumentException("The maximum frame size must be positive.");
+        }
+        maxFrameSize = bytes;
+        return this;
+    }
+
     /**
      * Parses the frames for the configured mode contained in the <code>source</code> string, returning a list of the
      * extracted frames.
@@ -141,30 +193,160 @@ public class StompParser {
             val line = lineIterator.next();
             val command = line.trim();
 
-            if (!command.isEmpty()) {
-                val frame = FRAMES.getOrDefault(
-                        command,
-                        () -> {
-                            throw new RuntimeException("Unexpected frame command: " + command);
-                        }
-                    )
-                    .get()
-                    .readFrom(lineReader);
-
-                if (mode.allowsFrame(frame)) {
-                    log.info("Parsed frame: {}", frame);
-                    collector.accept(frame);
-
-                } else if (ignoreIllegalFrame) {
-                    // we're just going to ignore it
-                    log.info("Parsed illegal frame ({}) for mode ({}) - ignoring it.", frame, mode);
-
-                } else {
-                    log.debug("Parsed illegal frame ({}) for mode ({}) - throwing exception.", frame, mode);
-                    // TODO: custom exception - IllegalFrameException
-                    throw new IOException("Illegal frame (" + frame.getCommand() + ") for mode (" + mode + ").");
-                }
+            if (command.isEmpty()) {
+                continue;
             }
+
+            if (accepts(command)) {
+                emit(createFrame(command).readFrom(lineReader), collector);
+            } else {
+                skipFrame(lineReader);
+            }
+        }
+    }
+
+    /**
+     * Parses the frames for the configured mode contained in the <code>source</code> buffer, returning a list of the
+     * extracted frames. The buffer content is scanned as bytes, rather than being decoded into lines of text.
+     *
+     * @param source the buffer containing the frame bytes
+     * @return a list of parsed frames
+     * @throws IOException if there is a problem parsing the source
+     */
+    public List<BaseFrame> parse(final ByteBuffer source) throws IOException {
+        val frames = new ArrayList<BaseFrame>();
+        read(source, frames::add);
+        return frames;
+    }
+
+    /**
+     * Reads and extracts the frames from the bytes remaining in the <code>source</code> buffer and publishes them to
+     * the provided <code>Consumer</code> as they are parsed. The command, headers and frame terminator are located by
+     * scanning the bytes directly - only the header names, values and body are decoded into strings.
+     *
+     * When this method returns, the position of the buffer will be at its limit.
+     *
+     * @param source    the buffer containing the frame bytes
+     * @param collector the consumer of the extracted frames
+     * @throws IOException if there is a problem parsing the frames in the buffer
+     */
+    public void read(final ByteBuffer source, final Consumer<BaseFrame> collector) throws IOException {
+        val decoder = decoder();
+        decoder.decode(source, collector);
+
+        if (decoder.pendingBytes() > 0) {
+            throw new IOException("Incomplete frame - no NUL terminator found.");
+        }
+    }
+
+    /**
+     * Reads the frames from the bytes remaining in the <code>source</code> buffer, publishing a flyweight view of each
+     * one to the provided <code>Consumer</code>. The views read their content directly from the buffer, so nothing is
+     * decoded or copied unless it is requested. A view is only valid until the consumer returns - use its
+     * <code>materialize()</code> method to keep the frame.
+     *
+     * @param source    the buffer containing the frame bytes
+     * @param collector the consumer of the frame views
+     * @throws IOException if there is a problem locating the frames in the buffer
+     */
+    public void readViews(final ByteBuffer source, final Consumer<FrameView> collector) throws IOException {
+        val decoder = decoder();
+        decoder.decodeViews(source, collector);
+
+        if (decoder.pendingBytes() > 0) {
+            throw new IOException("Incomplete frame - no NUL terminator found.");
+        }
+    }
+
+    /**
+     * Creates a new incremental decoder which uses the configuration of this parser. The decoder is fed with chunks of
+     * bytes as they arrive and emits each frame once it has been completely received.
+     *
+     * @return a new decoder instance
+     */
+    public StompDecoder decoder() {
+        return new StompDecoder(this);
+    }
+
+    int maxFrameSize() {
+        return maxFrameSize;
+    }
+
+    // reads a single frame starting with the command line at the current position of the buffer
+    BaseFrame readFrame(final ByteBuffer source) throws IOException {
+        val commandStart = source.position();
+        val lineEnd = indexOf(source, commandStart, source.limit(), (byte) '\n');
+        if (lineEnd < 0) {
+            throw new IOException("Incomplete frame - no EOL found after command.");
+        }
+
+        val command = command(source, commandStart, trimEnd(source, commandStart, lineEnd));
+        source.position(lineEnd + 1);
+
+        return createFrame(command).readFrom(source);
+    }
+
+    static String command(final ByteBuffer source, final int from, final int to) {
+        val known = COMMANDS.match(source, from, to);
+        return known != null ? known : decode(source, from, to, US_ASCII);
+    }
+
+    private BaseFrame createFrame(final String command) {
+        if (pool != null && FRAMES.containsKey(command)) {
+            return pool.acquire(command);
+        }
+
+        return FRAMES.getOrDefault(
+                command,
+                () -> {
+                    throw new RuntimeException("Unexpected frame command: " + command);
+                }
+            )
+            .get();
+    }
+
+    /*
+     * Determines whether the frame with the command is allowed by the parser mode, before anything else of the frame
+     * has been parsed. A frame which is not allowed is either to be skipped (returns false) or rejected with an
+     * exception, depending on the illegal frame configuration.
+     */
+    boolean accepts(final String command) throws IOException {
+        val frameType = FRAME_TYPES.get(command);
+        if (frameType == null || mode.allows(frameType)) {
+            // unknown commands are reported when the frame is created
+            return true;
+
+        } else if (ignoreIllegalFrame) {
+            // we're just going to ignore it
+            log.debug("Illegal frame ({}) for mode ({}) - ignoring it.", command, mode);
+            return false;
+
+        } else {
+            log.debug("Illegal frame ({}) for mode ({}) - throwing exception.", command, mode);
+            // TODO: custom exception - IllegalFrameException
+            throw new IOException("Illegal frame (" + command + ") for mode (" + mode + ").");
+        }
+    }
+
+    // determines whether the complete frame in the range [start, terminator] is accepted (see above)
+    boolean accepts(final ByteBuffer source, final int start, final int terminator) throws IOException {
+        val lineEnd = indexOf(source, start, terminator, (byte) '\n');
+        if (lineEnd < 0) {
+            throw new IOException("Incomplete frame - no EOL found after command.");
+        }
+        return accepts(command(source, start, trimEnd(source, start, lineEnd)));
+    }
+
+    void emit(final BaseFrame frame, final Consumer<BaseFrame> collector) {
+        log.debug("Parsed frame: {}", frame);
+        collector.accept(frame);
+    }
+
+    // skips the rest of an ignored frame, up to and including its NUL terminator
+    private static void skipFrame(final Reader reader) throws IOException {
+        var ch = reader.read();
+        while (ch != '\0' && ch != -1) {
+            ch = reader.read();
         }
     }
 
@@ -27,7 +27,7 @@ public final class AbortFrame extends BaseFrame {
     public static final String COMMAND = "ABORT";
 
     public AbortFrame() {
-        super(COMMAND);
+        super(COMMAND, CLIENT);
     }
 
     public AbortFrame(final String transaction) {
@@ -16,36 +16,156 @@
 package io.github.cjstehno.trample.stomp;
 
 import io.github.cjstehno.trample.parser.StompParser;
+import io.github.cjstehno.trample.util.HeaderEscaping;
+import io.github.cjstehno.trample.util.TokenMatcher;
 import lombok.*;
 
-import java.io.IOException;
-import java.io.Reader;
-import java.io.StringWriter;
-import java.io.Writer;
-import java.util.LinkedHashMap;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
+import static io.github.cjstehno.trample.stomp.StompHeaders.*;
+import static io.github.cjstehno.trample.util.ByteBuffers.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static lombok.AccessLevel.PACKAGE;
 
 @RequiredArgsConstructor(access = PACKAGE) @ToString @EqualsAndHashCode
 public abstract sealed class BaseFrame permits AbortFrame, AckFrame, BeginFrame, CommitFrame, ConnectFrame, ConnectedFrame, DisconnectFrame, ErrorFrame, MessageFrame, NackFrame, ReceiptFrame, SendFrame, StompFrame, SubscribeFrame, UnsubscribeFrame {
 
+    private static final ByteBuffer EMPTY_BODY = ByteBuffer.allocate(0);
+    private static final String CHARSET_PARAM = "charset=";
+
+    // the well-known header names
+    static final List<String> WELL_KNOWN_HEADERS = List.of(
+        VERSION, ACCEPT_VERSION, HOST, RECEIPT_ID, RECEIPT, DESTINATION, ID, TRANSACTION, CONTENT_TYPE, CONTENT_LENGTH,
+        LOGIN, PASSCODE, HEART_BEAT, SESSION, SERVER, SUBSCRIPTION, MessageFrame.MESSAGE_ID_HEADER,
+        MessageFrame.ACK_HEADER, ErrorFrame.MESSAGE_HEADER
+    );
+
+    // resolves the well-known header names to the constant instances when read (rather than allocating new strings)
+    private static final TokenMatcher HEADER_NAMES = new TokenMatcher(WELL_KNOWN_HEADERS);
+
     @Getter private final String command;
-    @Getter private final Map<String, String> headers = new LinkedHashMap<>();
-    @Getter(PACKAGE) @Setter(PACKAGE) private String body = "";
+
+    // NOTE: the frame direction is fixed per frame class (it matches the FrameType annotation)
+    @Getter @ToString.Exclude @EqualsAndHashCode.Exclude private final FrameType.Type frameType;
+    private final HeaderMap headers = new HeaderMap();
+    // NOTE: the body is stored as bytes, the string form is decoded on demand (and cached)
+    @ToString.Exclude private ByteBuffer body = EMPTY_BODY;
+    @ToString.Exclude private transient String bodyText = "";
+
+    // the array read bodies are copied into - kept when the frame is cleared, so that a reused frame can reuse it
+    @ToString.Exclude private transient byte[] bodyStorage;
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
 
     // NOTE: only first value of duplicate header is stored
     public void setHeader(final String name, final String value) {
-        if (!headers.containsKey(name)) {
-            headers.put(name, value);
-        }
+        headers.add(name, value);
     }
 
     public String getHeader(final String name) {
         return headers.get(name);
     }
 
+    /**
+     * Removes all of the headers and the body so that the frame instance may be reused (e.g. by a frame pool). The
+     * storage already allocated by the frame is retained.
+     */
+    public void clear() {
+        headers.clear();
+        body = EMPTY_BODY;
+        bodyText = "";
+    }
+
+    /**
+     * Retrieves the body as a string, decoded using the charset of the content-type header (UTF-8 by default). The
+     * decoded value is cached until the body is changed.
+     *
+     * @return the body string
+     */
+    @ToString.Include(name = "body")
+    String getBody() {
+        var text = bodyText;
+        if (text == null) {
+            text = decode(body, 0, body.limit(), bodyCharset());
+            bodyText = text;
+        }
+        return text;
+    }
+
+    /**
+     * Sets the body from a string, which is encoded using the charset of the content-type header (UTF-8 by default)
+     * - the content-type should be set before the body.
+     *
+     * @param body the body string
+     */
+    void setBody(final String body) {
+        this.body = ByteBuffer.wrap(body.getBytes(bodyCharset()));
+        this.bodyText = body;
+    }
+
+    /**
+     * Retrieves a read-only view of the body bytes. The view is independent of the frame, but shares its content.
+     *
+     * @return a read-only buffer containing the body bytes
+     */
+    ByteBuffer getBodyBuffer() {
+        return body.asReadOnlyBuffer();
+    }
+
+    /**
+     * Sets the body to the remaining content of the buffer. The content is NOT copied; the frame keeps a view of it, so
+     * the buffer content should not be modified while the frame is in use.
+     *
+     * @param body the buffer containing the body bytes
+     */
+    void setBody(final ByteBuffer body) {
+        this.body = body.slice();
+        this.bodyText = null;
+    }
+
+    /**
+     * Retrieves a copy of the body bytes.
+     *
+     * @return the body bytes
+     */
+    byte[] getBodyBytes() {
+        return copy(body, 0, body.limit());
+    }
+
+    /**
+     * Sets the body to the provided bytes. The array is NOT copied, so it should not be modified while the frame is
+     * in use.
+     *
+     * @param body the body bytes
+     */
+    void setBody(final byte[] body) {
+        setBody(ByteBuffer.wrap(body));
+    }
+
+    private Charset bodyCharset() {
+        val contentType = getHeader(CONTENT_TYPE);
+        if (contentType != null) {
+            for (val param : contentType.split(";")) {
+                val trimmed = param.trim();
+                if (trimmed.regionMatches(true, 0, CHARSET_PARAM, 0, CHARSET_PARAM.length())) {
+                    try {
+                        return Charset.forName(trimmed.substring(CHARSET_PARAM.length()).replace("\"", ""));
+                    } catch (IllegalArgumentException iae) {
+                        // unknown or unsupported charset - fall back to the default
+                        break;
+                    }
+                }
+            }
+        }
+        return UTF_8;
+    }
+
     // NOTE: the command line is optional (may have been parsed off already)
     public BaseFrame readFrom(final Reader reader) throws IOException {
         val lineReader = StompParser.ensureBuffered(reader);
@@ -62,7 +182,7 @@ public abstract sealed class BaseFrame permits AbortFrame, AckFrame, BeginFrame,
         while (!line.isBlank()) {
             val headerName = line.substring(0, line.indexOf(":"));
             val headerValue = line.substring(line.indexOf(":") + 1);
-            setHeader(headerName, headerValue);
+            setHeader(unescaped(headerName), unescaped(headerValue));
 
             line = lineReader.readLine();
         }
@@ -83,30 +203,163 @@ public abstract sealed class BaseFrame permits AbortFrame, AckFrame, BeginFrame,
         return this;
     }
 
+    /**
+     * Reads the frame from the bytes of the buffer, starting at its current position and leaving the position just
+     * past the NUL terminator. The command line is optional (may have been parsed off already). When the frame has a
+     * content-length header, exactly that many bytes are taken as the body, so it may contain NUL bytes.
+     *
+     * @param buffer the buffer containing the frame bytes
+     * @return a reference to this frame
+     * @throws IOException if the buffer does not contain a complete, well-formed frame
+     */
+    public BaseFrame readFrom(final ByteBuffer buffer) throws IOException {
+        val limit = buffer.limit();
+        var position = buffer.position();
+
+        // command (may not be present)
+        var lineEnd = requireLineEnd(buffer, position, limit);
+        if (matches(buffer, skipWhitespace(buffer, position, lineEnd), trimEnd(buffer, position, lineEnd), command)) {
+            // skip and continue
+            position = lineEnd + 1;
+            lineEnd = requireLineEnd(buffer, position, limit);
+        }
+
+        // headers
+        var contentLength = -1;
+        var contentEnd = lineContentEnd(buffer, position, lineEnd);
+        while (contentEnd > position) {
+            val separator = indexOf(buffer, position, contentEnd, (byte) ':');
+            if (separator < 0) {
+                throw new IOException("Malformed header line in " + command + " frame.");
+            }
+
+            val name = headerName(buffer, position, separator);
+            if (contentLength < 0 && CONTENT_LENGTH.equals(name)) {
+                // the first one wins, parsed from the bytes just as the decoder does, so that both agree on the body
+                contentLength = contentLength(buffer, separator + 1, contentEnd);
+            }
+            setHeader(name, headerValue(buffer, separator + 1, contentEnd));
+
+            position = lineEnd + 1;
+            lineEnd = requireLineEnd(buffer, position, limit);
+            contentEnd = lineContentEnd(buffer, position, lineEnd);
+        }
+        position = lineEnd + 1;
+
+        // body - the content-length (when present) determines the size, otherwise it runs to the first NUL
+        val terminator = contentLength >= 0 ? position + contentLength : indexOf(buffer, position, limit, (byte) '\0');
+        if (terminator < 0 || terminator >= limit) {
+            throw new IOException("Incomplete " + command + " frame - no NUL terminator found.");
+        } else if (buffer.get(terminator) != '\0') {
+            throw new IOException("Malformed " + command + " frame - body is not followed by a NUL terminator.");
+        }
+
+        // the body is copied, since the source buffer may be reused once the frame has been read
+        setBody(copyBody(buffer, position, terminator));
+        buffer.position(terminator + 1);
+
+        return this;
+    }
+
+    private String headerName(final ByteBuffer buffer, final int from, final int to) throws IOException {
+        val known = HEADER_NAMES.match(buffer, from, to);
+        return known != null ? known : headerValue(buffer, from, to);
+    }
+
+    private String headerValue(final ByteBuffer buffer, final int from, final int to) throws IOException {
+        val value = decode(buffer, from, to, UTF_8);
+        return escaping() && indexOf(buffer, from, to, (byte) '\\') >= 0 ? HeaderEscaping.unescape(value) : value;
+    }
+
+    private String unescaped(final String value) throws IOException {
+        return escaping() ? HeaderEscaping.unescape(value) : value;
+    }
+
+    String escaped(final String value) {
+        return escaping() ? HeaderEscaping.escape(value) : value;
+    }
+
+    // NOTE: the CONNECT and CONNECTED frames do not escape headers (for backwards compatibility with STOMP 1.0)
+    boolean escaping() {
+        return !(this instanceof ConnectFrame || this instanceof ConnectedFrame);
+    }
+
+    private ByteBuffer copyBody(final ByteBuffer buffer, final int from, final int to) {
+        val length = to - from;
+        if (bodyStorage == null || bodyStorage.length < length) {
+            bodyStorage = new byte[length];
+        }
+
+        buffer.get(from, bodyStorage, 0, length);
+        return ByteBuffer.wrap(bodyStorage, 0, length);
+    }
+
+    private int contentLength(final ByteBuffer buffer, final int from, final int to) throws IOException {
+        val length = parseLength(buffer, from, to);
+        if (length < 0) {
+            val value = decode(buffer, from, to, UTF_8);
+            throw new IOException("Invalid content-length (" + value + ") in " + command + " frame.");
+        }
+        return length;
+    }
+
+    private int requireLineEnd(final ByteBuffer buffer, final int from, final int limit) throws IOException {
+        val lineEnd = indexOf(buffer, from, limit, (byte) '\n');
+        if (lineEnd < 0) {
+            throw new IOException("Incomplete " + command + " frame - no EOL found.");
+        }
+        return lineEnd;
+    }
+
+    // the end of the line content, without the optional carriage return before the EOL
+    private static int lineContentEnd(final ByteBuffer buffer, final int from, final int lineEnd) {
+        return lineEnd > from && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+    }
+
     public void writeTo(final Writer writer) throws IOException {
         // command
         writer.write(command);
         writer.write('\n');
 
         // headers
-        for (val header : headers.entrySet()) {
-            writer.write(header.getKey());
+        for (int i = 0; i < headers.size(); i++) {
+            writer.write(escaped(headers.nameAt(i)));
             writer.write(':');
-            writer.write(header.getValue());
+            writer.write(escaped(headers.valueAt(i)));
             writer.write('\n');
         }
         writer.write('\n');
 
         // body
-        writer.write(body);
+        writer.write(getBody());
 
         writer.write('\0');
     }
 
+    /**
+     * Writes the frame to the output stream, encoded directly to bytes by the <code>FrameEncoder</code>.
+     *
+     * @param output the output stream
+     * @throws IOException if there is a problem writing the frame
+     */
+    public void writeTo(final OutputStream output) throws IOException {
+        val encoded = FrameEncoder.encode(this);
+        output.write(encoded.array(), encoded.arrayOffset(), encoded.limit());
+    }
+
     public String write() throws IOException {
         try (val writer = new StringWriter()) {
             writeTo(writer);
             return writer.toString();
         }
     }
+
+    HeaderMap headerMap() {
+        return headers;
+    }
+
+    // NOTE: the internal body buffer - its content and position must not be modified
+    ByteBuffer bodyContent() {
+        return body;
+    }
 }
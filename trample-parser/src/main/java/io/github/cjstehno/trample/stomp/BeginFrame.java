@@ -27,7 +27,7 @@ public final class BeginFrame extends BaseFrame {
     public static final String COMMAND = "BEGIN";
 
     public BeginFrame() {
-        super(COMMAND);
+        super(COMMAND, CLIENT);
     }
 
     public BeginFrame(final String transaction) {
@@ -27,7 +27,7 @@ public final class CommitFrame extends BaseFrame {
     public static final String COMMAND = "COMMIT";
 
     public CommitFrame() {
-        super(COMMAND);
+        super(COMMAND, CLIENT);
     }
 
     public CommitFrame(final String transaction) {
@@ -19,6 +19,7 @@ import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
 import static io.github.cjstehno.trample.stomp.FrameType.Type.SERVER;
+import static io.github.cjstehno.trample.stomp.StompHeaders.HEART_BEAT;
 import static io.github.cjstehno.trample.stomp.StompHeaders.VERSION;
 
 @ToString(callSuper = true) @EqualsAndHashCode(callSuper = true) @FrameType(SERVER)
@@ -27,7 +28,7 @@ public final class ConnectedFrame extends BaseFrame {
     public static final String COMMAND = "CONNECTED";
 
     public ConnectedFrame() {
-        super(COMMAND);
+        super(COMMAND, SERVER);
     }
 
     public ConnectedFrame(final String version) {
@@ -42,4 +43,12 @@ public final class ConnectedFrame extends BaseFrame {
     public String getVersion() {
         return getHeader(VERSION);
     }
+
+    public void setHeartBeat(final HeartBeat heartBeat) {
+        setHeader(HEART_BEAT, heartBeat.headerValue());
+    }
+
+    public HeartBeat getHeartBeat() {
+        return HeartBeat.parse(getHeader(HEART_BEAT));
+    }
 }
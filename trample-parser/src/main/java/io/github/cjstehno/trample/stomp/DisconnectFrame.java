@@ -27,7 +27,7 @@ public final class DisconnectFrame extends BaseFrame {
     public static final String COMMAND = "DISCONNECT";
 
     public DisconnectFrame() {
-        super(COMMAND);
+        super(COMMAND, CLIENT);
     }
 
     public DisconnectFrame(final String receiptId) {
@@ -19,6 +19,8 @@ import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import lombok.val;
 
+import java.nio.ByteBuffer;
+
 import static io.github.cjstehno.trample.stomp.FrameType.Type.SERVER;
 import static io.github.cjstehno.trample.stomp.StompHeaders.CONTENT_LENGTH;
 import static io.github.cjstehno.trample.stomp.StompHeaders.CONTENT_TYPE;
@@ -31,7 +33,7 @@ public final class ErrorFrame extends BaseFrame {
     public static final String MESSAGE_HEADER = "message";
 
     public ErrorFrame() {
-        super(COMMAND);
+        super(COMMAND, SERVER);
     }
 
     public void setMessage(final String message) {
@@ -66,4 +68,20 @@ public final class ErrorFrame extends BaseFrame {
     @Override public void setBody(final String body) {
         super.setBody(body);
     }
+
+    @Override public byte[] getBodyBytes() {
+        return super.getBodyBytes();
+    }
+
+    @Override public void setBody(final byte[] body) {
+        super.setBody(body);
+    }
+
+    @Override public ByteBuffer getBodyBuffer() {
+        return super.getBodyBuffer();
+    }
+
+    @Override public void setBody(final ByteBuffer body) {
+        super.setBody(body);
+    }
 }
@@ -0,0 +1,256 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.stomp;
+
+import lombok.NoArgsConstructor;
+import lombok.val;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.github.cjstehno.trample.stomp.StompHeaders.CONTENT_LENGTH;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Encodes frames directly into bytes, without going through a <code>Writer</code> (and its charset encoder). The
+ * command lines and the <code>name:</code> prefixes of the well-known headers are pre-encoded constants, ASCII header
+ * content is written byte-by-byte and the body bytes are bulk-copied.
+ *
+ * When a frame has a body but no content-length header, the encoder writes the content-length of the body (the frame
+ * itself is not modified).
+ *
+ * For large bodies, the {@link #buffers(BaseFrame)} and {@link #write(BaseFrame, GatheringByteChannel)} methods encode
+ * only the command and headers, and pass the body buffer of the frame through as-is so that it is never copied.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class FrameEncoder {
+
+    private static final Map<String, byte[]> COMMAND_LINES = new HashMap<>();
+    private static final Map<String, byte[]> HEADER_PREFIXES = new HashMap<>();
+    private static final ByteBuffer TERMINATOR = ByteBuffer.wrap(new byte[]{0}).asReadOnlyBuffer();
+
+    static {
+        for (val command : new String[]{
+            ConnectFrame.COMMAND, StompFrame.COMMAND, ConnectedFrame.COMMAND, SendFrame.COMMAND, SubscribeFrame.COMMAND,
+            UnsubscribeFrame.COMMAND, AckFrame.COMMAND, NackFrame.COMMAND, BeginFrame.COMMAND, CommitFrame.COMMAND,
+            AbortFrame.COMMAND, DisconnectFrame.COMMAND, MessageFrame.COMMAND, ReceiptFrame.COMMAND, ErrorFrame.COMMAND
+        }) {
+            COMMAND_LINES.put(command, (command + '\n').getBytes(UTF_8));
+        }
+
+        BaseFrame.WELL_KNOWN_HEADERS.forEach(name -> HEADER_PREFIXES.put(name, (name + ':').getBytes(UTF_8)));
+    }
+
+    /**
+     * Encodes the frame into a new (heap) buffer of exactly the encoded size, ready for reading.
+     *
+     * @param frame the frame to be encoded
+     * @return the buffer containing the encoded frame
+     */
+    public static ByteBuffer encode(final BaseFrame frame) {
+        val buffer = ByteBuffer.allocate(encodedSize(frame));
+        encode(frame, buffer);
+        return buffer.flip();
+    }
+
+    /**
+     * Encodes the frame into the target buffer, starting at its current position. When this method returns, the
+     * position of the target will be just past the encoded frame.
+     *
+     * @param frame  the frame to be encoded
+     * @param target the target buffer
+     * @throws BufferOverflowException if the target does not have room for the encoded frame
+     */
+    public static void encode(final BaseFrame frame, final ByteBuffer target) {
+        if (target.remaining() < encodedSize(frame)) {
+            throw new BufferOverflowException();
+        }
+
+        val body = frame.bodyContent();
+
+        putHead(frame, target);
+
+        target.put(target.position(), body, 0, body.limit());
+        target.position(target.position() + body.limit());
+
+        target.put((byte) 0);
+    }
+
+    /**
+     * Encodes the command line, the header lines and the blank line separating them from the body into a new (heap)
+     * buffer, ready for reading. The body and the NUL terminator are not included.
+     *
+     * @param frame the frame to be encoded
+     * @return the buffer containing the encoded head of the frame
+     */
+    public static ByteBuffer encodeHead(final BaseFrame frame) {
+        val buffer = ByteBuffer.allocate(headSize(frame));
+        putHead(frame, buffer);
+        return buffer.flip();
+    }
+
+    /**
+     * Provides the encoded frame as a sequence of buffers suitable for a gathering write: the encoded head, a read-only
+     * view of the body buffer of the frame (its content is not copied) and the NUL terminator. The buffers are
+     * independent of each other and of the frame, other than sharing the body content.
+     *
+     * @param frame the frame to be encoded
+     * @return the buffers making up the encoded frame
+     */
+    public static ByteBuffer[] buffers(final BaseFrame frame) {
+        return new ByteBuffer[]{encodeHead(frame), frame.bodyContent().asReadOnlyBuffer(), TERMINATOR.duplicate()};
+    }
+
+    /**
+     * Writes the frame to the channel with gathering writes of its {@link #buffers(BaseFrame)}, until all of the bytes
+     * have been written. This is meant for channels in blocking mode; a non-blocking channel would be spun on while
+     * its socket buffer is full.
+     *
+     * @param frame   the frame to be written
+     * @param channel the channel the frame is written to
+     * @return the number of bytes written
+     * @throws IOException if there is a problem writing to the channel
+     */
+    public static long write(final BaseFrame frame, final GatheringByteChannel channel) throws IOException {
+        val buffers = buffers(frame);
+        val total = (long) buffers[0].remaining() + buffers[1].remaining() + 1;
+
+        var written = 0L;
+        while (written < total) {
+            written += channel.write(buffers);
+        }
+        return written;
+    }
+
+    /**
+     * Calculates the number of bytes of the encoded frame (including the NUL terminator).
+     *
+     * @param frame the frame
+     * @return the encoded size in bytes
+     */
+    public static int encodedSize(final BaseFrame frame) {
+        // head, body and NUL
+        return headSize(frame) + frame.bodyContent().limit() + 1;
+    }
+
+    private static int headSize(final BaseFrame frame) {
+        val headers = frame.headerMap();
+
+        var size = commandLength(frame.getCommand());
+        for (int i = 0; i < headers.size(); i++) {
+            size += encodedLength(frame.escaped(headers.nameAt(i))) + encodedLength(frame.escaped(headers.valueAt(i))) + 2;
+        }
+        if (requiresContentLength(frame)) {
+            size += CONTENT_LENGTH.length() + stringSize(frame.bodyContent().limit()) + 2;
+        }
+
+        // blank line
+        return size + 1;
+    }
+
+    private static void putHead(final BaseFrame frame, final ByteBuffer target) {
+        val headers = frame.headerMap();
+
+        putCommand(frame.getCommand(), target);
+
+        for (int i = 0; i < headers.size(); i++) {
+            putHeader(frame, headers.nameAt(i), headers.valueAt(i), target);
+        }
+        if (requiresContentLength(frame)) {
+            putHeader(frame, CONTENT_LENGTH, String.valueOf(frame.bodyContent().limit()), target);
+        }
+        target.put((byte) '\n');
+    }
+
+    private static boolean requiresContentLength(final BaseFrame frame) {
+        return frame.bodyContent().limit() > 0 && !frame.headerMap().containsKey(CONTENT_LENGTH);
+    }
+
+    private static int commandLength(final String command) {
+        val line = COMMAND_LINES.get(command);
+        return line != null ? line.length : encodedLength(command) + 1;
+    }
+
+    private static void putCommand(final String command, final ByteBuffer target) {
+        val line = COMMAND_LINES.get(command);
+        if (line != null) {
+            target.put(line);
+        } else {
+            putString(command, target);
+            target.put((byte) '\n');
+        }
+    }
+
+    private static void putHeader(final BaseFrame frame, final String name, final String value, final ByteBuffer target) {
+        val prefix = HEADER_PREFIXES.get(name);
+        if (prefix != null) {
+            target.put(prefix);
+        } else {
+            putString(frame.escaped(name), target);
+            target.put((byte) ':');
+        }
+
+        putString(frame.escaped(value), target);
+        target.put((byte) '\n');
+    }
+
+    // writes ASCII strings directly, only falling back to the charset encoder for other content
+    private static void putString(final String value, final ByteBuffer target) {
+        val length = value.length();
+        for (int i = 0; i < length; i++) {
+            val ch = value.charAt(i);
+            if (ch >= 0x80) {
+                target.put(value.substring(i).getBytes(UTF_8));
+                return;
+            }
+            target.put((byte) ch);
+        }
+    }
+
+    // the number of UTF-8 bytes of the string
+    private static int encodedLength(final String value) {
+        val length = value.length();
+        var bytes = length;
+        for (int i = 0; i < length; i++) {
+            val ch = value.charAt(i);
+            if (ch >= 0x80) {
+                if (ch < 0x800) {
+                    bytes++;
+                } else if (Character.isHighSurrogate(ch) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    // a surrogate pair (2 chars) is encoded as 4 bytes
+                    bytes += 2;
+                    i++;
+                } else {
+                    bytes += 2;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private static int stringSize(final int value) {
+        var digits = 1;
+        for (var remaining = value / 10; remaining > 0; remaining /= 10) {
+            digits++;
+        }
+        return digits;
+    }
+}
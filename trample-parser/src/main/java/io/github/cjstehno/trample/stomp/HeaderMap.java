@@ -0,0 +1,277 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.stomp;
+
+import lombok.val;
+
+import java.util.*;
+
+/**
+ * Compact, insertion-ordered header storage. Frames usually carry only a handful of headers, so the names and values
+ * are kept in parallel arrays and found with a linear scan; a hash index over the arrays is only built once the number
+ * of headers grows past a threshold. The arrays are retained when the map is cleared, so a reused frame does not
+ * allocate new header storage.
+ */
+final class HeaderMap extends AbstractMap<String, String> {
+
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int INDEX_THRESHOLD = 8;
+
+    private String[] names = new String[INITIAL_CAPACITY];
+    private String[] values = new String[INITIAL_CAPACITY];
+    private int size;
+
+    // open-addressing hash index holding (array index + 1), only present past the threshold
+    private int[] index;
+
+    @Override public int size() {
+        return size;
+    }
+
+    @Override public boolean containsKey(final Object name) {
+        return indexOf(name) >= 0;
+    }
+
+    @Override public String get(final Object name) {
+        val at = indexOf(name);
+        return at >= 0 ? values[at] : null;
+    }
+
+    /**
+     * Adds the header only if there is not already a header with the same name (the first duplicate wins) - this
+     * requires only a single lookup.
+     *
+     * @param name  the header name
+     * @param value the header value
+     * @return true if the header was added
+     */
+    boolean add(final String name, final String value) {
+        if (indexOf(name) >= 0) {
+            return false;
+        }
+
+        append(name, value);
+        return true;
+    }
+
+    @Override public String put(final String name, final String value) {
+        val at = indexOf(name);
+        if (at >= 0) {
+            val previous = values[at];
+            values[at] = value;
+            return previous;
+        }
+
+        append(name, value);
+        return null;
+    }
+
+    @Override public String remove(final Object name) {
+        val at = indexOf(name);
+        return at >= 0 ? removeAt(at) : null;
+    }
+
+    @Override public void clear() {
+        Arrays.fill(names, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        index = null;
+    }
+
+    String nameAt(final int at) {
+        return names[at];
+    }
+
+    String valueAt(final int at) {
+        return values[at];
+    }
+
+    @Override public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override public Iterator<Entry<String, String>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override public int size() {
+                return size;
+            }
+
+            @Override public void clear() {
+                HeaderMap.this.clear();
+            }
+        };
+    }
+
+    private int indexOf(final Object name) {
+        if (name == null) {
+            return -1;
+        }
+
+        if (index == null) {
+            // identity check first, since well-known header names are usually the same instances
+            for (int i = 0; i < size; i++) {
+                if (names[i] == name) {
+                    return i;
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                if (names[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        val mask = index.length - 1;
+        for (int slot = spread(name.hashCode()) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+            val at = index[slot] - 1;
+            if (names[at] == name || names[at].equals(name)) {
+                return at;
+            }
+        }
+        return -1;
+    }
+
+    private void append(final String name, final String value) {
+        Objects.requireNonNull(name, "Header name must not be null.");
+
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+
+        names[size] = name;
+        values[size] = value;
+        size++;
+
+        if (index != null) {
+            if (size * 2 > index.length) {
+                rebuildIndex();
+            } else {
+                insertIndex(size - 1);
+            }
+        } else if (size > INDEX_THRESHOLD) {
+            rebuildIndex();
+        }
+    }
+
+    private String removeAt(final int at) {
+        val previous = values[at];
+
+        val moved = size - at - 1;
+        System.arraycopy(names, at + 1, names, at, moved);
+        System.arraycopy(values, at + 1, values, at, moved);
+        size--;
+        names[size] = null;
+        values[size] = null;
+
+        if (index != null) {
+            if (size > INDEX_THRESHOLD) {
+                rebuildIndex();
+            } else {
+                index = null;
+            }
+        }
+
+        return previous;
+    }
+
+    private void rebuildIndex() {
+        index = new int[Integer.highestOneBit(size * 4 - 1) << 1];
+        for (int i = 0; i < size; i++) {
+            insertIndex(i);
+        }
+    }
+
+    private void insertIndex(final int at) {
+        val mask = index.length - 1;
+        var slot = spread(names[at].hashCode()) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = at + 1;
+    }
+
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private final class EntryIterator implements Iterator<Entry<String, String>> {
+
+        private int next;
+        private int last = -1;
+
+        @Override public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override public Entry<String, String> next() {
+            if (next >= size) {
+                throw new NoSuchElementException();
+            }
+
+            last = next++;
+            return new HeaderEntry(last);
+        }
+
+        @Override public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+
+            removeAt(last);
+            next = last;
+            last = -1;
+        }
+    }
+
+    private final class HeaderEntry implements Entry<String, String> {
+
+        private final int at;
+
+        private HeaderEntry(final int at) {
+            this.at = at;
+        }
+
+        @Override public String getKey() {
+            return names[at];
+        }
+
+        @Override public String getValue() {
+            return values[at];
+        }
+
+        @Override public String setValue(final String value) {
+            val previous = values[at];
+            values[at] = value;
+            return previous;
+        }
+
+        @Override public boolean equals(final Object other) {
+            return other instanceof Entry<?, ?> entry
+                && Objects.equals(getKey(), entry.getKey())
+                && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.stomp;
+
+import lombok.Value;
+import lombok.val;
+
+/**
+ * The value of the <code>heart-beat</code> header of the CONNECT (or STOMP) and CONNECTED frames: the smallest interval
+ * (in milliseconds) at which the sender can send heart-beats, and the interval at which it would like to receive them -
+ * zero meaning none.
+ */
+@Value
+public class HeartBeat {
+
+    /**
+     * No heart-beating (<code>0,0</code>), which is also what a missing header means.
+     */
+    public static final HeartBeat NONE = new HeartBeat(0, 0);
+
+    long sendInterval;
+    long receiveInterval;
+
+    /**
+     * Parses the value of a <code>heart-beat</code> header.
+     *
+     * @param value the header value (<code>null</code> is treated as no heart-beating)
+     * @return the heart-beat settings
+     * @throws IllegalArgumentException if the value is not valid
+     */
+    public static HeartBeat parse(final String value) {
+        if (value == null) {
+            return NONE;
+        }
+
+        val separator = value.indexOf(',');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid heart-beat: " + value);
+        }
+
+        try {
+            val send = Long.parseLong(value.substring(0, separator).trim());
+            val receive = Long.parseLong(value.substring(separator + 1).trim());
+            if (send < 0 || receive < 0) {
+                throw new IllegalArgumentException("Invalid heart-beat: " + value);
+            }
+            return new HeartBeat(send, receive);
+
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid heart-beat: " + value, e);
+        }
+    }
+
+    /**
+     * The interval at which this side (e.g. the client) must send heart-beats, as negotiated with the other side - zero
+     * if no heart-beats are sent.
+     *
+     * @param other the heart-beat settings of the other side
+     * @return the negotiated sending interval
+     */
+    public long negotiateSend(final HeartBeat other) {
+        return sendInterval == 0 || other.receiveInterval == 0 ? 0 : Math.max(sendInterval, other.receiveInterval);
+    }
+
+    /**
+     * The interval at which this side (e.g. the client) should receive heart-beats (or other data) from the other side,
+     * as negotiated with it - zero if no heart-beats are expected.
+     *
+     * @param other the heart-beat settings of the other side
+     * @return the negotiated receiving interval
+     */
+    public long negotiateReceive(final HeartBeat other) {
+        return receiveInterval == 0 || other.sendInterval == 0 ? 0 : Math.max(receiveInterval, other.sendInterval);
+    }
+
+    /**
+     * Formats the settings as a <code>heart-beat</code> header value.
+     *
+     * @return the header value
+     */
+    public String headerValue() {
+        return sendInterval + "," + receiveInterval;
+    }
+}
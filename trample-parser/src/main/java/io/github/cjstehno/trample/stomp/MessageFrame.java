@@ -19,6 +19,8 @@ import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import lombok.val;
 
+import java.nio.ByteBuffer;
+
 import static io.github.cjstehno.trample.stomp.FrameType.Type.SERVER;
 import static io.github.cjstehno.trample.stomp.StompHeaders.*;
 import static java.lang.Integer.parseInt;
@@ -31,7 +33,7 @@ public final class MessageFrame extends BaseFrame {
     public static final String ACK_HEADER = "ack";
 
     public MessageFrame() {
-        super(COMMAND);
+        super(COMMAND, SERVER);
     }
 
     public MessageFrame(final String destination, final String messageId) {
@@ -48,6 +50,14 @@ public final class MessageFrame extends BaseFrame {
         return getHeader(MESSAGE_ID_HEADER);
     }
 
+    public void setSubscription(final String subscription) {
+        setHeader(SUBSCRIPTION, subscription);
+    }
+
+    public String getSubscription() {
+        return getHeader(SUBSCRIPTION);
+    }
+
     public void setDestination(final String destination) {
         setHeader(DESTINATION, destination);
     }
@@ -88,4 +98,20 @@ public final class MessageFrame extends BaseFrame {
     @Override public void setBody(final String body) {
         super.setBody(body);
     }
+
+    @Override public byte[] getBodyBytes() {
+        return super.getBodyBytes();
+    }
+
+    @Override public void setBody(final byte[] body) {
+        super.setBody(body);
+    }
+
+    @Override public ByteBuffer getBodyBuffer() {
+        return super.getBodyBuffer();
+    }
+
+    @Override public void setBody(final ByteBuffer body) {
+        super.setBody(body);
+    }
 }
@@ -20,6 +20,7 @@ import lombok.ToString;
 
 import static io.github.cjstehno.trample.stomp.FrameType.Type.CLIENT;
 import static io.github.cjstehno.trample.stomp.StompHeaders.ID;
+import static io.github.cjstehno.trample.stomp.StompHeaders.TRANSACTION;
 
 @ToString(callSuper = true) @EqualsAndHashCode(callSuper = true) @FrameType(CLIENT)
 public final class NackFrame extends BaseFrame {
@@ -27,7 +28,7 @@ public final class NackFrame extends BaseFrame {
     public static final String COMMAND = "NACK";
 
     public NackFrame() {
-        super(COMMAND);
+        super(COMMAND, CLIENT);
     }
 
     public NackFrame(final String id) {
@@ -42,4 +43,12 @@ public final class NackFrame extends BaseFrame {
     public String getId() {
         return getHeader(ID);
     }
+
+    public void setTransaction(final String transaction) {
+        setHeader(TRANSACTION, transaction);
+    }
+
+    public String getTransaction() {
+        return getHeader(TRANSACTION);
+    }
 }
@@ -28,7 +28,7 @@ public final class ReceiptFrame extends BaseFrame {
 
 
     public ReceiptFrame() {
-        super(COMMAND);
+        super(COMMAND, SERVER);
     }
 
     public ReceiptFrame(final String receiptId) {
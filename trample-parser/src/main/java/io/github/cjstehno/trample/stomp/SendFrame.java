@@ -19,6 +19,8 @@ import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import lombok.val;
 
+import java.nio.ByteBuffer;
+
 import static io.github.cjstehno.trample.stomp.FrameType.Type.CLIENT;
 import static io.github.cjstehno.trample.stomp.StompHeaders.*;
 import static java.lang.Integer.parseInt;
@@ -29,7 +31,7 @@ public final class SendFrame extends BaseFrame {
     public static final String COMMAND = "SEND";
 
     public SendFrame() {
-        super(COMMAND);
+        super(COMMAND, CLIENT);
     }
 
     public SendFrame(final String destination) {
@@ -69,4 +71,28 @@ public final class SendFrame extends BaseFrame {
     @Override public void setBody(final String body) {
         super.setBody(body);
     }
+
+    @Override public byte[] getBodyBytes() {
+        return super.getBodyBytes();
+    }
+
+    @Override public void setBody(final byte[] body) {
+        super.setBody(body);
+    }
+
+    @Override public ByteBuffer getBodyBuffer() {
+        return super.getBodyBuffer();
+    }
+
+    @Override public void setBody(final ByteBuffer body) {
+        super.setBody(body);
+    }
+
+    public void setTransaction(final String transaction) {
+        setHeader(TRANSACTION, transaction);
+    }
+
+    public String getTransaction() {
+        return getHeader(TRANSACTION);
+    }
 }
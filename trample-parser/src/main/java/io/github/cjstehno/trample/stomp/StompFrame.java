@@ -20,6 +20,7 @@ import lombok.ToString;
 
 import static io.github.cjstehno.trample.stomp.FrameType.Type.CLIENT;
 import static io.github.cjstehno.trample.stomp.StompHeaders.ACCEPT_VERSION;
+import static io.github.cjstehno.trample.stomp.StompHeaders.HEART_BEAT;
 import static io.github.cjstehno.trample.stomp.StompHeaders.HOST;
 
 @ToString(callSuper = true) @EqualsAndHashCode(callSuper = true) @FrameType(CLIENT)
@@ -28,7 +29,7 @@ public final class StompFrame extends BaseFrame {
     public static final String COMMAND = "STOMP";
 
     public StompFrame() {
-        super(COMMAND);
+        super(COMMAND, CLIENT);
     }
 
     public StompFrame(final String host, final String acceptVersion) {
@@ -52,4 +53,12 @@ public final class StompFrame extends BaseFrame {
     public String getAcceptVersion() {
         return getHeader(ACCEPT_VERSION);
     }
+
+    public void setHeartBeat(final HeartBeat heartBeat) {
+        setHeader(HEART_BEAT, heartBeat.headerValue());
+    }
+
+    public HeartBeat getHeartBeat() {
+        return HeartBeat.parse(getHeader(HEART_BEAT));
+    }
 }
@@ -32,4 +32,5 @@ public interface StompHeaders {
     String HEART_BEAT = "heart-beat";
     String SESSION = "session";
     String SERVER = "server";
+    String SUBSCRIPTION = "subscription";
 }
@@ -17,18 +17,22 @@ package io.github.cjstehno.trample.stomp;
 
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
+import lombok.val;
 
 import static io.github.cjstehno.trample.stomp.FrameType.Type.CLIENT;
 import static io.github.cjstehno.trample.stomp.StompHeaders.DESTINATION;
 import static io.github.cjstehno.trample.stomp.StompHeaders.ID;
+import static java.lang.Integer.parseInt;
 
 @ToString(callSuper = true) @EqualsAndHashCode(callSuper = true) @FrameType(CLIENT)
 public final class SubscribeFrame extends BaseFrame {
 
     public static final String COMMAND = "SUBSCRIBE";
+    public static final String ACK_HEADER = "ack";
+    public static final String PREFETCH_SIZE_HEADER = "activemq.prefetchSize";
 
     public SubscribeFrame() {
-        super(COMMAND);
+        super(COMMAND, CLIENT);
     }
 
     public SubscribeFrame(final String destination, final String id) {
@@ -52,4 +56,21 @@ public final class SubscribeFrame extends BaseFrame {
     public String getId() {
         return getHeader(ID);
     }
+
+    public void setAck(final String ack) {
+        setHeader(ACK_HEADER, ack);
+    }
+
+    public String getAck() {
+        return getHeader(ACK_HEADER);
+    }
+
+    public void setPrefetchSize(final int size) {
+        setHeader(PREFETCH_SIZE_HEADER, String.valueOf(size));
+    }
+
+    public Integer getPrefetchSize() {
+        val size = getHeader(PREFETCH_SIZE_HEADER);
+        return size != null ? parseInt(size) : null;
+    }
 }
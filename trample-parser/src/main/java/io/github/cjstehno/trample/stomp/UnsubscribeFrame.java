@@ -27,7 +27,7 @@ public final class UnsubscribeFrame extends BaseFrame {
     public static final String COMMAND = "UNSUBSCRIBE";
 
     public UnsubscribeFrame() {
-        super(COMMAND);
+        super(COMMAND, CLIENT);
     }
 
     public UnsubscribeFrame(final String id) {
@@ -0,0 +1,182 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.util;
+
+import lombok.NoArgsConstructor;
+import lombok.val;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Helpers for scanning and decoding STOMP content held in a <code>ByteBuffer</code>. All of the methods use absolute
+ * indexes and never modify the position or limit of the buffer they are given.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class ByteBuffers {
+
+    /**
+     * Finds the index of the first occurrence of the given byte in the range <code>[from, to)</code>.
+     *
+     * @param buffer the buffer to scan
+     * @param from   the first index to check (inclusive)
+     * @param to     the last index to check (exclusive)
+     * @param value  the byte to find
+     * @return the absolute index of the byte, or <code>-1</code> if it was not found
+     */
+    public static int indexOf(final ByteBuffer buffer, final int from, final int to, final byte value) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first index in the range <code>[from, to)</code> which does not contain a whitespace (or control)
+     * character, using the same definition of whitespace as <code>String.trim()</code>.
+     *
+     * @param buffer the buffer to scan
+     * @param from   the first index to check (inclusive)
+     * @param to     the last index to check (exclusive)
+     * @return the absolute index of the first non-whitespace byte, or <code>to</code> if there is none
+     */
+    public static int skipWhitespace(final ByteBuffer buffer, final int from, final int to) {
+        int index = from;
+        if (buffer.hasArray()) {
+            // direct array access for the heart-beat EOLs which may make up whole chunks
+            val array = buffer.array();
+            val offset = buffer.arrayOffset();
+            while (index < to && (array[offset + index] & 0xff) <= ' ') {
+                index++;
+            }
+        } else {
+            while (index < to && (buffer.get(index) & 0xff) <= ' ') {
+                index++;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Determines the exclusive end of the content in the range <code>[from, to)</code> once trailing whitespace (or
+     * control) characters have been removed.
+     *
+     * @param buffer the buffer to scan
+     * @param from   the first index of the content (inclusive)
+     * @param to     the last index of the content (exclusive)
+     * @return the absolute index just past the last non-whitespace byte, or <code>from</code> if there is none
+     */
+    public static int trimEnd(final ByteBuffer buffer, final int from, final int to) {
+        int index = to;
+        while (index > from && (buffer.get(index - 1) & 0xff) <= ' ') {
+            index--;
+        }
+        return index;
+    }
+
+    /**
+     * Determines whether the bytes in the range <code>[from, to)</code> are exactly the (ASCII) characters of the
+     * given string. No allocation is performed.
+     *
+     * @param buffer the buffer to check
+     * @param from   the first index of the content (inclusive)
+     * @param to     the last index of the content (exclusive)
+     * @param value  the expected string value
+     * @return true if the content matches the string
+     */
+    public static boolean matches(final ByteBuffer buffer, final int from, final int to, final String value) {
+        if (to - from != value.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            if (buffer.get(from + i) != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses the bytes in the range <code>[from, to)</code> as a non-negative decimal integer (such as a
+     * <code>content-length</code> header value). Surrounding whitespace is ignored.
+     *
+     * @param buffer the buffer containing the bytes
+     * @param from   the first index of the content (inclusive)
+     * @param to     the last index of the content (exclusive)
+     * @return the parsed value, or <code>-1</code> if the content is not a valid non-negative integer
+     */
+    public static int parseLength(final ByteBuffer buffer, final int from, final int to) {
+        val start = skipWhitespace(buffer, from, to);
+        val end = trimEnd(buffer, start, to);
+        if (start == end) {
+            return -1;
+        }
+
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            val digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        return (int) value;
+    }
+
+    /**
+     * Decodes the bytes in the range <code>[from, to)</code> as a string using the provided charset.
+     *
+     * @param buffer  the buffer containing the bytes
+     * @param from    the first index of the content (inclusive)
+     * @param to      the last index of the content (exclusive)
+     * @param charset the charset used to decode the bytes
+     * @return the decoded string
+     */
+    public static String decode(final ByteBuffer buffer, final int from, final int to, final Charset charset) {
+        if (from == to) {
+            return "";
+
+        } else if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + from, to - from, charset);
+
+        } else {
+            return new String(copy(buffer, from, to), charset);
+        }
+    }
+
+    /**
+     * Copies the bytes in the range <code>[from, to)</code> into a new array.
+     *
+     * @param buffer the buffer containing the bytes
+     * @param from   the first index of the content (inclusive)
+     * @param to     the last index of the content (exclusive)
+     * @return the copied bytes
+     */
+    public static byte[] copy(final ByteBuffer buffer, final int from, final int to) {
+        val bytes = new byte[to - from];
+        buffer.get(from, bytes);
+        return bytes;
+    }
+}
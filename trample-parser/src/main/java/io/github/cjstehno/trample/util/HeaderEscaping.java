@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.util;
+
+import lombok.NoArgsConstructor;
+import lombok.val;
+
+import java.io.IOException;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * STOMP 1.2 header escaping. In the frame encoding, the backslash, carriage return, line feed and colon characters of
+ * header names and values are escaped as <code>\\</code>, <code>\r</code>, <code>\n</code> and <code>\c</code>.
+ *
+ * Both directions have a fast path: the value is scanned once and, when it contains nothing to be escaped (or
+ * unescaped) - which is the common case - it is returned as-is without allocating anything.
+ *
+ * @apiNote <a href="https://stomp.github.io/stomp-specification-1.2.html#Value_Encoding">Value Encoding</a>
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class HeaderEscaping {
+
+    /**
+     * Escapes the special characters of the header name or value.
+     *
+     * @param value the raw value
+     * @return the escaped value (the same instance when nothing needs escaping)
+     */
+    public static String escape(final String value) {
+        val length = value.length();
+
+        var first = 0;
+        while (first < length && !requiresEscape(value.charAt(first))) {
+            first++;
+        }
+        if (first == length) {
+            return value;
+        }
+
+        val escaped = new StringBuilder(length + 8).append(value, 0, first);
+        for (int i = first; i < length; i++) {
+            val ch = value.charAt(i);
+            switch (ch) {
+                case '\\' -> escaped.append("\\\\");
+                case '\r' -> escaped.append("\\r");
+                case '\n' -> escaped.append("\\n");
+                case ':' -> escaped.append("\\c");
+                default -> escaped.append(ch);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Unescapes the escape sequences in the header name or value.
+     *
+     * @param value the escaped value
+     * @return the raw value (the same instance when there are no escape sequences)
+     * @throws IOException if the value contains an escape sequence not defined by the specification
+     */
+    public static String unescape(final String value) throws IOException {
+        val first = value.indexOf('\\');
+        if (first < 0) {
+            return value;
+        }
+
+        val length = value.length();
+        val unescaped = new StringBuilder(length).append(value, 0, first);
+        for (int i = first; i < length; i++) {
+            val ch = value.charAt(i);
+            if (ch != '\\') {
+                unescaped.append(ch);
+
+            } else if (i + 1 < length) {
+                unescaped.append(switch (value.charAt(++i)) {
+                    case '\\' -> '\\';
+                    case 'r' -> '\r';
+                    case 'n' -> '\n';
+                    case 'c' -> ':';
+                    default -> throw new IOException("Undefined header escape sequence (\\" + value.charAt(i) + ").");
+                });
+
+            } else {
+                throw new IOException("Incomplete header escape sequence at the end of: " + value);
+            }
+        }
+        return unescaped.toString();
+    }
+
+    private static boolean requiresEscape(final char ch) {
+        return ch == '\\' || ch == '\r' || ch == '\n' || ch == ':';
+    }
+}
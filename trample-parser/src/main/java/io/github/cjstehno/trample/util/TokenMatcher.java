@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.util;
+
+import lombok.val;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Matches byte sequences against a fixed set of (ASCII) tokens, resolving a match to the canonical token string
+ * without any allocation. The tokens are bucketed by length - a perfect hash for the small STOMP token sets, where a
+ * bucket holds at most a few tokens, which are then told apart by their first byte before the full comparison.
+ */
+public final class TokenMatcher {
+
+    private static final String[] NO_TOKENS = new String[0];
+    private static final byte[][] NO_BYTES = new byte[0][];
+
+    private final String[][] tokens;
+    private final byte[][][] bytes;
+
+    /**
+     * Creates a matcher for the provided tokens.
+     *
+     * @param candidates the tokens to be matched (must be ASCII)
+     */
+    public TokenMatcher(final Collection<String> candidates) {
+        val maxLength = candidates.stream().mapToInt(String::length).max().orElse(0);
+
+        val buckets = new ArrayList<List<String>>();
+        for (int i = 0; i <= maxLength; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        candidates.stream().distinct().forEach(token -> buckets.get(token.length()).add(token));
+
+        tokens = new String[maxLength + 1][];
+        bytes = new byte[maxLength + 1][][];
+        for (int length = 0; length <= maxLength; length++) {
+            val bucket = buckets.get(length);
+            tokens[length] = bucket.isEmpty() ? NO_TOKENS : bucket.toArray(String[]::new);
+            bytes[length] = bucket.isEmpty() ? NO_BYTES : bucket.stream().map(t -> t.getBytes(US_ASCII)).toArray(byte[][]::new);
+        }
+    }
+
+    /**
+     * Creates a matcher for the provided tokens.
+     *
+     * @param candidates the tokens to be matched (must be ASCII)
+     */
+    public TokenMatcher(final String... candidates) {
+        this(Arrays.asList(candidates));
+    }
+
+    /**
+     * Finds the token matching the bytes in the range <code>[from, to)</code>.
+     *
+     * @param buffer the buffer containing the bytes
+     * @param from   the first index of the content (inclusive)
+     * @param to     the last index of the content (exclusive)
+     * @return the canonical token instance, or <code>null</code> if the content is not one of the tokens
+     */
+    public String match(final ByteBuffer buffer, final int from, final int to) {
+        val length = to - from;
+        if (length <= 0 || length >= tokens.length) {
+            return null;
+        }
+
+        val candidates = bytes[length];
+        val first = buffer.get(from);
+
+        for (int c = 0; c < candidates.length; c++) {
+            val candidate = candidates[c];
+            if (candidate[0] == first && equalTail(buffer, from, candidate)) {
+                return tokens[length][c];
+            }
+        }
+        return null;
+    }
+
+    private static boolean equalTail(final ByteBuffer buffer, final int from, final byte[] candidate) {
+        for (int i = candidate.length - 1; i > 0; i--) {
+            if (buffer.get(from + i) != candidate[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.parser;
+
+import io.github.cjstehno.trample.stomp.BaseFrame;
+import io.github.cjstehno.trample.stomp.MessageFrame;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FramePoolTest {
+
+    private static final byte[] SOURCE = """
+        MESSAGE
+        destination:/queue/a
+        message-id:007
+                    
+        hello\0
+        MESSAGE
+        destination:/queue/b
+        message-id:008
+                    
+        hi\0""".getBytes(UTF_8);
+
+    @Test void acquireAndRelease() {
+        val pool = FramePool.create(2);
+
+        val frame = pool.acquire(MessageFrame.COMMAND);
+        assertInstanceOf(MessageFrame.class, frame);
+        assertEquals(0, pool.available(MessageFrame.COMMAND));
+
+        frame.setHeader("destination", "/queue/a");
+        pool.release(frame);
+
+        assertEquals(1, pool.available(MessageFrame.COMMAND));
+        assertTrue(frame.getHeaders().isEmpty());
+
+        assertSame(frame, pool.acquire(MessageFrame.COMMAND));
+    }
+
+    @Test void unknownCommand() {
+        assertThrows(IllegalArgumentException.class, () -> FramePool.create(1).acquire("BOGUS"));
+    }
+
+    @Test void pooledParsing() throws IOException {
+        val pool = FramePool.create(4);
+        val parser = StompParser.forServerFrames().pooled(pool);
+        val decoder = parser.decoder();
+
+        val seen = new ArrayList<BaseFrame>();
+        val destinations = new ArrayList<String>();
+        val bodies = new ArrayList<String>();
+
+        for (int i = 0; i < 3; i++) {
+            decoder.decode(ByteBuffer.wrap(SOURCE), frame -> {
+                val message = (MessageFrame) frame;
+                seen.add(message);
+                destinations.add(message.getDestination());
+                bodies.add(message.getBody());
+                pool.release(frame);
+            });
+        }
+
+        assertEquals(6, seen.size());
+        seen.forEach(frame -> assertSame(seen.get(0), frame));
+        assertEquals("/queue/a", destinations.get(4));
+        assertEquals("/queue/b", destinations.get(5));
+        assertEquals("hello", bodies.get(4));
+        assertEquals("hi", bodies.get(5));
+    }
+
+    @Test void ignoredFramesNotAcquired() throws IOException {
+        val pool = FramePool.create(4).leakDetection(true);
+        val frames = StompParser.forClientFrames().ignoreIllegalFrame(true).pooled(pool).parse(ByteBuffer.wrap(SOURCE));
+
+        assertTrue(frames.isEmpty());
+        assertEquals(0, pool.available(MessageFrame.COMMAND));
+        assertEquals(0, pool.leaksDetected());
+    }
+
+    @Test void doubleRelease() {
+        val pool = FramePool.create(2).leakDetection(true);
+
+        val frame = pool.acquire(MessageFrame.COMMAND);
+        pool.release(frame);
+
+        assertThrows(IllegalStateException.class, () -> pool.release(frame));
+        assertEquals(0, pool.leaksDetected());
+    }
+}
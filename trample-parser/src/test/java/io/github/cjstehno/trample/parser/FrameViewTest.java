@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.parser;
+
+import io.github.cjstehno.trample.stomp.MessageFrame;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import static io.github.cjstehno.trample.stomp.StompHeaders.DESTINATION;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameViewTest {
+
+    private static final byte[] SOURCE = """
+        MESSAGE
+        destination:/queue/a
+        message-id:007
+        destination:/queue/b
+                    
+        hello\0
+        MESSAGE\r
+        destination:/queue/c\r
+        message-id:008\r
+        content-length:3\r
+        \r
+        a\0b\0""".getBytes(UTF_8);
+
+    @Test void viewing() throws IOException {
+        val destinations = new ArrayList<String>();
+        val bodies = new ArrayList<ByteBuffer>();
+
+        StompParser.forServerFrames().readViews(ByteBuffer.wrap(SOURCE), view -> {
+            assertTrue(view.isCommand(MessageFrame.COMMAND));
+            assertEquals(MessageFrame.COMMAND, view.getCommand());
+            assertTrue(view.hasHeader(MessageFrame.MESSAGE_ID_HEADER));
+            assertFalse(view.hasHeader("subscription"));
+
+            destinations.add(view.getHeaderChars(DESTINATION).toString());
+            bodies.add(view.getBody());
+        });
+
+        assertEquals(2, destinations.size());
+        assertEquals("/queue/a", destinations.get(0));
+        assertEquals("/queue/c", destinations.get(1));
+        assertEquals(ByteBuffer.wrap("hello".getBytes(UTF_8)), bodies.get(0));
+        assertEquals(ByteBuffer.wrap(new byte[]{'a', 0, 'b'}), bodies.get(1));
+    }
+
+    @Test void headerAccess() throws IOException {
+        StompParser.forServerFrames().decoder().decodeViews(ByteBuffer.wrap(SOURCE), view -> {
+            if (view.isHeader(MessageFrame.MESSAGE_ID_HEADER, "007")) {
+                assertEquals("/queue/a", view.getHeader(DESTINATION));
+                assertEquals(ByteBuffer.wrap("/queue/a".getBytes(UTF_8)), view.getHeaderBytes(DESTINATION));
+
+                val chars = view.getHeaderChars(DESTINATION);
+                assertEquals(8, chars.length());
+                assertEquals('q', chars.charAt(1));
+                assertEquals("queue", chars.subSequence(1, 6).toString());
+
+                assertNull(view.getHeader("content-length"));
+            } else {
+                assertEquals("3", view.getHeader("content-length"));
+            }
+        });
+    }
+
+    @Test void materializing() throws IOException {
+        val frames = new ArrayList<MessageFrame>();
+
+        StompParser.forServerFrames().readViews(ByteBuffer.wrap(SOURCE), view -> {
+            try {
+                frames.add((MessageFrame) view.materialize());
+            } catch (IOException e) {
+                fail(e);
+            }
+        });
+
+        assertEquals(StompParser.forServerFrames().parse(ByteBuffer.wrap(SOURCE)), frames);
+        assertEquals("/queue/a", frames.get(0).getDestination());
+        assertEquals("hello", frames.get(0).getBody());
+    }
+}
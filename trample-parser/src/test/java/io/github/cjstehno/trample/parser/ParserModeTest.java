@@ -15,11 +15,12 @@
  */
 package io.github.cjstehno.trample.parser;
 
-import io.github.cjstehno.trample.stomp.ConnectedFrame;
+import io.github.cjstehno.trample.stomp.*;
 import lombok.val;
 import org.junit.jupiter.api.Test;
 
 import static io.github.cjstehno.trample.parser.ParserMode.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -34,4 +35,10 @@ class ParserModeTest {
         assertTrue(SERVER.allowsFrame(frame));
         assertFalse(CLIENT.allowsFrame(frame));
     }
+
+    @Test void frameTypesMatchAnnotations() {
+        StompParser.FRAMES.values().stream().map(frame -> frame.get()).forEach(frame ->
+            assertEquals(frame.getClass().getAnnotation(FrameType.class).value(), frame.getFrameType(), frame.getCommand())
+        );
+    }
 }
\ No newline at end of file
@@ -0,0 +1,192 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.parser;
+
+import io.github.cjstehno.trample.stomp.BaseFrame;
+import io.github.cjstehno.trample.stomp.ConnectedFrame;
+import io.github.cjstehno.trample.stomp.MessageFrame;
+import io.github.cjstehno.trample.stomp.ReceiptFrame;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StompDecoderTest {
+
+    private static final byte[] SOURCE = """
+        CONNECTED
+        version:1.2
+                    
+        \0
+                    
+        MESSAGE
+        destination:/queue/a
+        message-id:007
+                    
+        hello\0
+        RECEIPT
+        receipt-id:77
+                    
+        \0""".getBytes(UTF_8);
+
+    @Test void decodingWholeBuffer() throws IOException {
+        val frames = new ArrayList<BaseFrame>();
+        val decoder = StompParser.forServerFrames().decoder();
+
+        decoder.decode(ByteBuffer.wrap(SOURCE), frames::add);
+
+        assertExpectedFrames(frames);
+        assertEquals(0, decoder.pendingBytes());
+    }
+
+    @Test void decodingSingleBytes() throws IOException {
+        val frames = new ArrayList<BaseFrame>();
+        val decoder = StompParser.forServerFrames().decoder();
+
+        for (val b : SOURCE) {
+            decoder.decode(ByteBuffer.wrap(new byte[]{b}), frames::add);
+        }
+
+        assertExpectedFrames(frames);
+        assertEquals(0, decoder.pendingBytes());
+    }
+
+    @Test void decodingChunks() throws IOException {
+        for (int size = 2; size < SOURCE.length; size += 3) {
+            val frames = new ArrayList<BaseFrame>();
+            val decoder = StompParser.forServerFrames().decoder();
+
+            for (int offset = 0; offset < SOURCE.length; offset += size) {
+                val chunk = ByteBuffer.wrap(SOURCE, offset, Math.min(size, SOURCE.length - offset));
+                decoder.decode(chunk, frames::add);
+                assertFalse(chunk.hasRemaining());
+            }
+
+            assertExpectedFrames(frames);
+        }
+    }
+
+    @Test void decodingWithContentLength() throws IOException {
+        val source = """
+            MESSAGE
+            destination:/queue/a
+            message-id:007
+            content-length:5
+                        
+            a\0b\0c\0""".getBytes(UTF_8);
+
+        val frames = new ArrayList<BaseFrame>();
+        val decoder = StompParser.forServerFrames().decoder();
+
+        for (val b : source) {
+            decoder.decode(ByteBuffer.wrap(new byte[]{b}), frames::add);
+        }
+
+        val message = new MessageFrame("/queue/a", "007");
+        message.setContentLength(5);
+        message.setBody("a\0b\0c");
+
+        assertEquals(1, frames.size());
+        assertEquals(message, frames.get(0));
+    }
+
+    @Test void heartBeats() throws IOException {
+        val frames = new ArrayList<BaseFrame>();
+        val decoder = StompParser.forServerFrames().decoder();
+
+        // heart-beats alone leave nothing behind
+        decoder.decode(ByteBuffer.wrap("\n".getBytes(UTF_8)), frames::add);
+        decoder.decode(ByteBuffer.wrap("\r\n\n".getBytes(UTF_8)), frames::add);
+        assertEquals(0, decoder.pendingBytes());
+
+        // heart-beats between frames, and in the middle of a partial frame
+        decoder.decode(ByteBuffer.wrap("RECEIPT\nreceipt-id:1\n\n\0\n\nREC".getBytes(UTF_8)), frames::add);
+        decoder.decode(ByteBuffer.wrap("EIPT\nreceipt-id:2\n\n\0\n".getBytes(UTF_8)), frames::add);
+        decoder.decode(ByteBuffer.wrap("\n".getBytes(UTF_8)), frames::add);
+
+        assertEquals(2, frames.size());
+        assertEquals("2", ((ReceiptFrame) frames.get(1)).getReceiptId());
+        assertEquals(0, decoder.pendingBytes());
+    }
+
+    @Test void partialFrame() throws IOException {
+        val frames = new ArrayList<BaseFrame>();
+        val decoder = StompParser.forServerFrames().decoder();
+
+        decoder.decode(ByteBuffer.wrap(SOURCE, 0, 30), frames::add);
+
+        assertEquals(1, frames.size());
+        assertEquals(4, decoder.pendingBytes());
+
+        decoder.reset();
+        assertEquals(0, decoder.pendingBytes());
+    }
+
+    @Test void illegalFrames() throws IOException {
+        val decoder = StompParser.forClientFrames().decoder();
+        assertThrows(IOException.class, () -> decoder.decode(ByteBuffer.wrap(SOURCE), frame -> {}));
+
+        val frames = new ArrayList<BaseFrame>();
+        StompParser.forClientFrames().ignoreIllegalFrame(true).decoder().decode(ByteBuffer.wrap(SOURCE), frames::add);
+        assertTrue(frames.isEmpty());
+    }
+
+    @Test void oversizedContentLength() {
+        val decoder = StompParser.forServerFrames().decoder();
+        val source = "MESSAGE\ndestination:/queue/a\ncontent-length:2147483647\n\nhello".getBytes(UTF_8);
+
+        // rejected as soon as the length is known, rather than buffering the body
+        assertThrows(IOException.class, () -> decoder.decode(ByteBuffer.wrap(source), frame -> {}));
+    }
+
+    @Test void oversizedFrame() throws IOException {
+        val decoder = StompParser.forServerFrames().maxFrameSize(64).decoder();
+        val frames = new ArrayList<BaseFrame>();
+
+        val header = "MESSAGE\ndestination:/queue/a\n\n".getBytes(UTF_8);
+        decoder.decode(ByteBuffer.wrap(header), frames::add);
+        assertEquals(header.length, decoder.pendingBytes());
+
+        val body = ByteBuffer.wrap("x".repeat(64).getBytes(UTF_8));
+        assertThrows(IOException.class, () -> decoder.decode(body, frames::add));
+        assertTrue(frames.isEmpty());
+    }
+
+    @Test void signedContentLength() {
+        val source = "MESSAGE\ndestination:/queue/a\ncontent-length:+5\n\nhello\0".getBytes(UTF_8);
+
+        // the decoder and the frame agree on the content-length
+        val decoder = StompParser.forServerFrames().decoder();
+        assertThrows(IOException.class, () -> decoder.decode(ByteBuffer.wrap(source), frame -> {}));
+        assertThrows(IOException.class, () -> new MessageFrame().readFrom(ByteBuffer.wrap(source)));
+    }
+
+    private static void assertExpectedFrames(final List<BaseFrame> frames) {
+        val message = new MessageFrame("/queue/a", "007");
+        message.setBody("hello");
+
+        assertEquals(3, frames.size());
+        assertEquals(new ConnectedFrame("1.2"), frames.get(0));
+        assertEquals(message, frames.get(1));
+        assertEquals(new ReceiptFrame("77"), frames.get(2));
+    }
+}
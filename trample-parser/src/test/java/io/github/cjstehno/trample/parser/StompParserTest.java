@@ -16,13 +16,19 @@
 package io.github.cjstehno.trample.parser;
 
 import io.github.cjstehno.trample.stomp.ConnectedFrame;
-import io.github.cjstehno.trample.parser.StompParser;
+import io.github.cjstehno.trample.stomp.MessageFrame;
+import io.github.cjstehno.trample.stomp.ReceiptFrame;
+import io.github.cjstehno.trample.stomp.SendFrame;
 import lombok.val;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static io.github.cjstehno.trample.stomp.StompHeaders.DESTINATION;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
 
 class StompParserTest {
 
@@ -48,6 +54,110 @@ class StompParserTest {
         assertEquals(new ConnectedFrame("1.2"), frames.get(0));
     }
 
+    @Test void parsingBuffer() throws IOException {
+        val parser = StompParser.forServerFrames();
+
+        val source = ByteBuffer.wrap("""
+            CONNECTED
+            version:1.2
+                        
+            \0
+            MESSAGE\r
+            destination:/queue/a\r
+            message-id:007\r
+            \r
+            h\u00e9llo\0
+                        
+            RECEIPT
+            receipt-id:77
+                        
+            \0""".getBytes(UTF_8));
+
+        val frames = parser.parse(source);
+
+        val message = new MessageFrame("/queue/a", "007");
+        message.setBody("h\u00e9llo");
+
+        assertEquals(3, frames.size());
+        assertEquals(new ConnectedFrame("1.2"), frames.get(0));
+        assertEquals(message, frames.get(1));
+        assertEquals(new ReceiptFrame("77"), frames.get(2));
+        assertEquals(source.limit(), source.position());
+
+        // well-known commands and header names are the constant instances
+        assertSame(MessageFrame.COMMAND, frames.get(1).getCommand());
+        assertSame(DESTINATION, frames.get(1).getHeaders().keySet().iterator().next());
+    }
+
+    @Test void parsingBufferWithContentLength() throws IOException {
+        val parser = StompParser.forServerFrames();
+
+        val source = ByteBuffer.wrap("""
+            MESSAGE
+            destination:/queue/a
+            message-id:007
+            content-length:5
+                        
+            a\0b\0c\0""".getBytes(UTF_8));
+
+        val message = new MessageFrame("/queue/a", "007");
+        message.setContentLength(5);
+        message.setBody("a\0b\0c");
+
+        val frames = parser.parse(source);
+
+        assertEquals(1, frames.size());
+        assertEquals(message, frames.get(0));
+    }
+
+    @Test void parsingBufferWithWrongContentLength() {
+        val parser = StompParser.forServerFrames();
+
+        val source = ByteBuffer.wrap("""
+            MESSAGE
+            destination:/queue/a
+            message-id:007
+            content-length:2
+                        
+            abc\0""".getBytes(UTF_8));
+
+        assertThrows(IOException.class, () -> parser.parse(source));
+    }
+
+    @Test void parsingIncompleteBuffer() {
+        val parser = StompParser.forServerFrames();
+
+        val source = ByteBuffer.wrap("""
+            CONNECTED
+            version:1.2
+                        
+            """.getBytes(UTF_8));
+
+        assertThrows(IOException.class, () -> parser.parse(source));
+    }
+
+    @Test void ignoringIllegalFrames() throws IOException {
+        val source = """
+            MESSAGE
+            destination:/queue/a
+            message-id:007
+                        
+            hello\0
+            SEND
+            destination:/queue/b
+                        
+            \0
+            """;
+
+        val frames = StompParser.forClientFrames().ignoreIllegalFrame(true).parse(source);
+        assertEquals(List.of(new SendFrame("/queue/b")), frames);
+
+        val bufferFrames = StompParser.forClientFrames().ignoreIllegalFrame(true).parse(ByteBuffer.wrap(source.getBytes(UTF_8)));
+        assertEquals(List.of(new SendFrame("/queue/b")), bufferFrames);
+
+        assertThrows(IOException.class, () -> StompParser.forClientFrames().parse(source));
+    }
+
     // FIXME: move this to frame test
     @Test void writingConnected() throws IOException {
         val frame = new ConnectedFrame("1.2");
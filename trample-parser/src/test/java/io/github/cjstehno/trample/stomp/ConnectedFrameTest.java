@@ -78,6 +78,20 @@ class ConnectedFrameTest {
         );
     }
 
+    @Test void notEscaped() throws IOException {
+        val frame = new ConnectedFrame();
+        frame.setHeader("server", "broker:1.0\\x");
+
+        checkFrameWriteRead(
+            frame,
+            """
+                CONNECTED
+                server:broker:1.0\\x
+                            
+                \0"""
+        );
+    }
+
     @Test void read() throws IOException {
         checkFrameRead(
             new ConnectedFrame("1.2"),
@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.stomp;
+
+import io.github.cjstehno.trample.parser.StompParser;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameEncoderTest {
+
+    @Test void encodingMatchesWriter() throws IOException {
+        val frame = new SubscribeFrame("/queue/a", "sub-0");
+        frame.setHeader("x-custom", "va:lue");
+
+        val encoded = FrameEncoder.encode(frame);
+
+        assertEquals(frame.write(), UTF_8.decode(encoded).toString());
+        assertEquals(FrameEncoder.encodedSize(frame), encoded.limit());
+    }
+
+    @Test void automaticContentLength() throws IOException {
+        val frame = new SendFrame("/queue/a");
+        frame.setBody(new byte[]{1, 0, 2});
+
+        val encoded = FrameEncoder.encode(frame);
+
+        assertEquals(
+            "SEND\ndestination:/queue/a\ncontent-length:3\n\n\1\0\2\0",
+            UTF_8.decode(encoded.duplicate()).toString()
+        );
+        assertNull(frame.getContentLength());
+
+        val parsed = (SendFrame) StompParser.forClientFrames().parse(encoded).get(0);
+        assertArrayEquals(new byte[]{1, 0, 2}, parsed.getBodyBytes());
+        assertEquals(3, parsed.getContentLength());
+    }
+
+    @Test void explicitContentLength() {
+        val frame = new SendFrame("/queue/a");
+        frame.setContentLength(5);
+        frame.setBody("hello");
+
+        assertEquals(
+            "SEND\ndestination:/queue/a\ncontent-length:5\n\nhello\0",
+            UTF_8.decode(FrameEncoder.encode(frame)).toString()
+        );
+    }
+
+    @Test void nonAsciiContent() throws IOException {
+        val frame = new SendFrame("/queue/caf\u00e9\ud83d\ude00");
+        frame.setHeader("na\u00efve", "\u00fcber");
+        frame.setBody("\u20ac");
+
+        val encoded = FrameEncoder.encode(frame);
+        assertEquals(FrameEncoder.encodedSize(frame), encoded.limit());
+
+        val parsed = StompParser.forClientFrames().parse(encoded).get(0);
+        assertEquals("/queue/caf\u00e9\ud83d\ude00", ((SendFrame) parsed).getDestination());
+        assertEquals("\u00fcber", parsed.getHeader("na\u00efve"));
+        assertEquals("\u20ac", ((SendFrame) parsed).getBody());
+    }
+
+    @Test void encodingIntoBuffer() {
+        val frame = new AckFrame("ack-1");
+        val target = ByteBuffer.allocate(64);
+        target.put((byte) 'x');
+
+        FrameEncoder.encode(frame, target);
+
+        assertEquals(1 + FrameEncoder.encodedSize(frame), target.position());
+        assertThrows(BufferOverflowException.class, () -> FrameEncoder.encode(frame, ByteBuffer.allocate(4)));
+    }
+
+    @Test void gatheringBuffers() {
+        val content = "some content".getBytes(UTF_8);
+
+        val frame = new SendFrame("/queue/a");
+        frame.setBody(ByteBuffer.wrap(content));
+
+        val buffers = FrameEncoder.buffers(frame);
+        assertEquals(3, buffers.length);
+        assertEquals("SEND\ndestination:/queue/a\ncontent-length:12\n\n", UTF_8.decode(buffers[0]).toString());
+        assertEquals(1, buffers[2].remaining());
+
+        // the body is passed through, not copied
+        content[0] = 'S';
+        assertEquals("Some content", UTF_8.decode(buffers[1]).toString());
+    }
+
+    @Test void gatheringWrite() throws IOException {
+        val frame = new SendFrame("/queue/a");
+        frame.setBody(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5}));
+
+        // only accepts a few bytes per write, so the encoder has to keep writing
+        val channel = new TrickleChannel(3);
+        val written = FrameEncoder.write(frame, channel);
+
+        assertEquals(FrameEncoder.encodedSize(frame), written);
+        assertArrayEquals(FrameEncoder.encode(frame).array(), channel.output.toByteArray());
+    }
+
+    private static class TrickleChannel implements GatheringByteChannel {
+
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private final int maxBytes;
+
+        TrickleChannel(final int maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        @Override public long write(final ByteBuffer[] srcs, final int offset, final int length) {
+            var count = 0;
+            for (int i = offset; i < offset + length && count < maxBytes; i++) {
+                while (srcs[i].hasRemaining() && count < maxBytes) {
+                    output.write(srcs[i].get());
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        @Override public long write(final ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override public int write(final ByteBuffer src) {
+            return (int) write(new ByteBuffer[]{src});
+        }
+
+        @Override public boolean isOpen() {
+            return true;
+        }
+
+        @Override public void close() {
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.stomp;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeaderMapTest {
+
+    @Test void firstDuplicateWins() {
+        val headers = new HeaderMap();
+
+        assertTrue(headers.add("a", "1"));
+        assertFalse(headers.add("a", "2"));
+
+        assertEquals(1, headers.size());
+        assertEquals("1", headers.get("a"));
+    }
+
+    @Test void insertionOrder() {
+        val headers = new HeaderMap();
+        for (int i = 20; i > 0; i--) {
+            headers.add("header-" + i, String.valueOf(i));
+        }
+
+        assertEquals(20, headers.size());
+        assertEquals("header-20", headers.nameAt(0));
+        assertEquals("1", headers.valueAt(19));
+        assertEquals("header-20", headers.keySet().iterator().next());
+        assertEquals("13", headers.get("header-13"));
+        assertEquals("13", headers.get(new String("header-13")));
+        assertNull(headers.get("header-21"));
+    }
+
+    @Test void mapOperations() {
+        val headers = new HeaderMap();
+        val expected = new LinkedHashMap<String, String>();
+
+        for (int i = 0; i < 12; i++) {
+            headers.put("h" + i, "v" + i);
+            expected.put("h" + i, "v" + i);
+        }
+
+        assertEquals("v3", headers.put("h3", "x"));
+        expected.put("h3", "x");
+
+        assertEquals("v5", headers.remove("h5"));
+        expected.remove("h5");
+
+        headers.entrySet().removeIf(entry -> entry.getKey().equals("h0"));
+        expected.remove("h0");
+
+        assertEquals(expected, headers);
+        assertEquals(expected.hashCode(), headers.hashCode());
+        assertEquals(List.copyOf(expected.keySet()), List.copyOf(headers.keySet()));
+        assertEquals("x", headers.get("h3"));
+        assertFalse(headers.containsKey("h5"));
+        assertTrue(headers.containsKey("h11"));
+    }
+
+    @Test void clearing() {
+        val headers = new HeaderMap();
+        for (int i = 0; i < 10; i++) {
+            headers.add("h" + i, "v" + i);
+        }
+
+        headers.clear();
+
+        assertTrue(headers.isEmpty());
+        assertNull(headers.get("h1"));
+        assertEquals(Map.of(), headers);
+
+        headers.add("h1", "again");
+        assertEquals("again", headers.get("h1"));
+        assertEquals("{h1=again}", headers.toString());
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.stomp;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeartBeatTest {
+
+    @Test void parsing() {
+        assertEquals(new HeartBeat(1000, 2500), HeartBeat.parse("1000,2500"));
+        assertEquals(new HeartBeat(0, 10), HeartBeat.parse(" 0 , 10 "));
+        assertSame(HeartBeat.NONE, HeartBeat.parse(null));
+
+        assertThrows(IllegalArgumentException.class, () -> HeartBeat.parse("1000"));
+        assertThrows(IllegalArgumentException.class, () -> HeartBeat.parse("a,b"));
+        assertThrows(IllegalArgumentException.class, () -> HeartBeat.parse("-1,0"));
+    }
+
+    @Test void negotiating() {
+        val client = new HeartBeat(1000, 5000);
+
+        assertEquals(2000, client.negotiateSend(new HeartBeat(3000, 2000)));
+        assertEquals(5000, client.negotiateReceive(new HeartBeat(3000, 2000)));
+
+        assertEquals(0, client.negotiateSend(new HeartBeat(3000, 0)));
+        assertEquals(0, client.negotiateReceive(new HeartBeat(0, 2000)));
+        assertEquals(0, HeartBeat.NONE.negotiateSend(new HeartBeat(3000, 2000)));
+    }
+
+    @Test void frameHeaders() {
+        val connect = new ConnectFrame("localhost", "1.2");
+        assertEquals(HeartBeat.NONE, connect.getHeartBeat());
+
+        connect.setHeartBeat(new HeartBeat(100, 200));
+        assertEquals("100,200", connect.getHeader(StompHeaders.HEART_BEAT));
+
+        val connected = new ConnectedFrame("1.2");
+        connected.setHeartBeat(new HeartBeat(300, 400));
+        assertEquals(new HeartBeat(300, 400), connected.getHeartBeat());
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.stomp;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+
+import static io.github.cjstehno.trample.testing.Checks.checkEqualsAndHashCode;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageFrameTest {
+
+    private static final byte[] BINARY = {0, 1, 2, (byte) 0xff, 0, '\r', '\n'};
+
+    @Test void binaryBody() {
+        val frame = new MessageFrame("/queue/a", "007");
+        frame.setBody(BINARY);
+
+        assertArrayEquals(BINARY, frame.getBodyBytes());
+        assertEquals(BINARY.length, frame.getBodyBuffer().remaining());
+        assertTrue(frame.getBodyBuffer().isReadOnly());
+    }
+
+    @Test void bufferBody() {
+        val buffer = ByteBuffer.wrap(new byte[]{9, 9, 'a', 'b', 'c', 9});
+        buffer.position(2).limit(5);
+
+        val frame = new MessageFrame("/queue/a", "007");
+        frame.setBody(buffer);
+
+        assertEquals("abc", frame.getBody());
+        assertEquals(2, buffer.position());
+    }
+
+    @Test void stringBodyCharset() {
+        val frame = new MessageFrame("/queue/a", "007");
+        frame.setContentType("text/plain; charset=ISO-8859-1");
+        frame.setBody("caf\u00e9");
+
+        assertArrayEquals("caf\u00e9".getBytes(ISO_8859_1), frame.getBodyBytes());
+
+        val other = new MessageFrame("/queue/a", "007");
+        other.setContentType("text/plain; charset=ISO-8859-1");
+        other.setBody("caf\u00e9".getBytes(ISO_8859_1));
+
+        assertEquals("caf\u00e9", other.getBody());
+        checkEqualsAndHashCode(frame, other);
+    }
+
+    @Test void defaultCharset() {
+        val frame = new MessageFrame("/queue/a", "007");
+        frame.setBody("caf\u00e9".getBytes(UTF_8));
+
+        assertEquals("caf\u00e9", frame.getBody());
+    }
+
+    @Test void escapedHeaders() throws IOException {
+        val frame = new MessageFrame("/queue/a:b", "007");
+        frame.setHeader("custom:name", "line\none");
+
+        val written = frame.write();
+        assertTrue(written.contains("destination:/queue/a\\cb\n"));
+        assertTrue(written.contains("custom\\cname:line\\none\n"));
+
+        val other = new MessageFrame();
+        other.readFrom(new StringReader(written));
+        assertEquals(frame, other);
+
+        val bytes = new ByteArrayOutputStream();
+        frame.writeTo(bytes);
+
+        val fromBytes = new MessageFrame();
+        fromBytes.readFrom(ByteBuffer.wrap(bytes.toByteArray()));
+        assertEquals(frame, fromBytes);
+    }
+
+    @Test void writingBinary() throws IOException {
+        val frame = new MessageFrame("/queue/a", "007");
+        frame.setContentLength(BINARY.length);
+        frame.setBody(BINARY);
+
+        val output = new ByteArrayOutputStream();
+        frame.writeTo(output);
+
+        val other = new MessageFrame();
+        other.readFrom(ByteBuffer.wrap(output.toByteArray()));
+
+        assertEquals(frame, other);
+        assertArrayEquals(BINARY, other.getBodyBytes());
+    }
+}
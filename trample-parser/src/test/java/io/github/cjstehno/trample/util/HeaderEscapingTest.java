@@ -0,0 +1,50 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.util;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static io.github.cjstehno.trample.util.HeaderEscaping.escape;
+import static io.github.cjstehno.trample.util.HeaderEscaping.unescape;
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeaderEscapingTest {
+
+    @Test void escaping() {
+        assertEquals("a\\cb\\\\c\\nd\\re", escape("a:b\\c\nd\re"));
+        assertEquals("\\c\\c", escape("::"));
+    }
+
+    @Test void unescaping() throws IOException {
+        assertEquals("a:b\\c\nd\re", unescape("a\\cb\\\\c\\nd\\re"));
+        assertEquals("::", unescape("\\c\\c"));
+    }
+
+    @Test void fastPath() throws IOException {
+        val value = "/queue/orders";
+
+        assertSame(value, escape(value));
+        assertSame(value, unescape(value));
+    }
+
+    @Test void invalidEscapes() {
+        assertThrows(IOException.class, () -> unescape("a\\tb"));
+        assertThrows(IOException.class, () -> unescape("trailing\\"));
+    }
+}
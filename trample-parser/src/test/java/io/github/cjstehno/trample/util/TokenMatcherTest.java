@@ -0,0 +1,56 @@
+/**
+ * Copyright (C) 2022 Christopher J. Stehno
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.cjstehno.trample.util;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class TokenMatcherTest {
+
+    private static final String STOMP = "STOMP";
+    private static final String BEGIN = "BEGIN";
+    private static final String ABORT = "ABORT";
+    private static final String ERROR = "ERROR";
+    private static final String CONNECT = "CONNECT";
+
+    private final TokenMatcher matcher = new TokenMatcher(STOMP, BEGIN, ABORT, ERROR, CONNECT);
+
+    @Test void matching() {
+        val buffer = ByteBuffer.wrap("xxABORTxxCONNECTEDxxSTOMPxxERRORxxBEGIN".getBytes(US_ASCII));
+
+        assertSame(ABORT, matcher.match(buffer, 2, 7));
+        assertSame(CONNECT, matcher.match(buffer, 9, 16));
+        assertSame(STOMP, matcher.match(buffer, 20, 25));
+        assertSame(ERROR, matcher.match(buffer, 27, 32));
+        assertSame(BEGIN, matcher.match(buffer, 34, 39));
+    }
+
+    @Test void notMatching() {
+        val buffer = ByteBuffer.wrap("ABORXCONNECTEDSTOMQ".getBytes(US_ASCII));
+
+        assertNull(matcher.match(buffer, 0, 5));
+        assertNull(matcher.match(buffer, 5, 14));
+        assertNull(matcher.match(buffer, 14, 19));
+        assertNull(matcher.match(buffer, 0, 0));
+        assertNull(matcher.match(buffer, 0, 19));
+    }
+}